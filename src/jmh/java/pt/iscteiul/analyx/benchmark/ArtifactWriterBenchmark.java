@@ -0,0 +1,96 @@
+package pt.iscteiul.analyx.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.Chunk;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import pt.iscteiul.analyx.batch.ArtifactIdAllocator;
+import pt.iscteiul.analyx.batch.ArtifactJdbcWriter;
+import pt.iscteiul.analyx.entity.Artifact;
+
+import java.util.concurrent.TimeUnit;
+
+import static pt.iscteiul.analyx.benchmark.BenchmarkFixtures.inject;
+
+/**
+ * {@link ArtifactJdbcWriter} writing one chunk of {@code classes} classes of 10 methods, inside its own
+ * transaction as in the step, against an in-memory H2 in MySQL mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArtifactWriterBenchmark {
+	private static final int METHODS_PER_CLASS = 10;
+
+	@Param({"5", "50", "500"})
+	public int classes;
+
+	private DriverManagerDataSource dataSource;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private TransactionTemplate transactionTemplate;
+
+	private ArtifactJdbcWriter writer;
+
+	private Chunk<Artifact> chunk;
+
+	@Setup
+	public void setUp() {
+		dataSource = new DriverManagerDataSource("jdbc:h2:mem:analyx;MODE=MySQL;DB_CLOSE_DELAY=-1");
+		new ResourceDatabasePopulator(new ClassPathResource("benchmark-schema.sql")).execute(dataSource);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		transactionTemplate = new TransactionTemplate(transactionManager);
+
+		ArtifactIdAllocator artifactIdAllocator = new ArtifactIdAllocator();
+		inject(artifactIdAllocator, "jdbcTemplate", jdbcTemplate);
+		inject(artifactIdAllocator, "transactionManager", transactionManager);
+		inject(artifactIdAllocator, "blockSize", 1000);
+
+		writer = new ArtifactJdbcWriter();
+		inject(writer, "jdbcTemplate", jdbcTemplate);
+		inject(writer, "artifactIdAllocator", artifactIdAllocator);
+		inject(writer, "analysisMetrics", BenchmarkFixtures.analysisMetrics());
+
+		chunk = new Chunk<>();
+		BenchmarkFixtures.classArtifacts(classes * METHODS_PER_CLASS, METHODS_PER_CLASS).forEach(chunk::add);
+	}
+
+	@TearDown(Level.Iteration)
+	public void truncate() {
+		jdbcTemplate.update("delete from method_artifact");
+		jdbcTemplate.update("delete from class_artifact");
+		jdbcTemplate.update("delete from artifact");
+	}
+
+	@TearDown
+	public void tearDown() {
+		jdbcTemplate.execute("shutdown");
+	}
+
+	@Benchmark
+	public void write() {
+		// the writer gives the artifacts fresh ids on every call, so the same chunk can be written again
+		transactionTemplate.executeWithoutResult(status -> writer.write(chunk));
+	}
+}
@@ -0,0 +1,106 @@
+package pt.iscteiul.analyx.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.experimental.UtilityClass;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.iscteiul.analyx.batch.AnalysisMetrics;
+import pt.iscteiul.analyx.batch.BatchConstants;
+import pt.iscteiul.analyx.entity.ClassArtifact;
+import pt.iscteiul.analyx.entity.MethodArtifact;
+import pt.iscteiul.analyx.entity.Project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the beans under benchmark without a Spring context, with the collaborators that are not measured mocked out.
+ */
+@UtilityClass
+public class BenchmarkFixtures {
+	public static final int ID_PROJECT = 1;
+
+	public static Project project() {
+		Project project = new Project();
+		project.setId(ID_PROJECT);
+		project.setName("benchmark");
+		return project;
+	}
+
+	/**
+	 * A class with {@code methods} methods of a few branches each, about 12 lines per method.
+	 */
+	public static String javaSource(String packageName, String className, int methods) {
+		StringBuilder source = new StringBuilder()
+				.append("package ").append(packageName).append(";\n\n")
+				.append("import java.util.ArrayList;\nimport java.util.List;\n\n")
+				.append("public class ").append(className).append(" {\n")
+				.append("\tprivate final List<String> values = new ArrayList<>();\n")
+				.append("\tprivate int counter;\n\n");
+		for (int i = 0; i < methods; i++) {
+			source.append("\tpublic int method").append(i).append("(int value, String text) {\n")
+					.append("\t\tif (value > ").append(i).append(" && text != null) {\n")
+					.append("\t\t\tvalues.add(text);\n")
+					.append("\t\t} else if (value < 0) {\n")
+					.append("\t\t\tcounter--;\n")
+					.append("\t\t}\n")
+					.append("\t\tfor (int j = 0; j < value; j++) {\n")
+					.append("\t\t\tcounter += j % 2 == 0 ? j : -j;\n")
+					.append("\t\t}\n")
+					.append("\t\treturn counter + values.size();\n")
+					.append("\t}\n\n");
+		}
+		return source.append("}\n").toString();
+	}
+
+	public static List<ClassArtifact> classArtifacts(int methods, int methodsPerClass) {
+		Project project = project();
+		List<ClassArtifact> classArtifacts = new ArrayList<>();
+		for (int c = 0; c * methodsPerClass < methods; c++) {
+			ClassArtifact classArtifact = new ClassArtifact();
+			classArtifact.setName("pt.iscteiul.benchmark.Class" + c);
+			classArtifact.setLinesCode(methodsPerClass * 12);
+			classArtifact.setProject(project);
+			classArtifact.setNumberAttributes(c % 10);
+			classArtifact.setDit(1 + c % 3);
+			classArtifact.setCbo(c % 20);
+			classArtifact.setNoc(c % 4);
+			classArtifact.setFanIn(c % 7);
+			classArtifact.setFanOut(c % 9);
+			List<MethodArtifact> methodArtifacts = new ArrayList<>();
+			for (int m = 0; m < methodsPerClass && c * methodsPerClass + m < methods; m++) {
+				MethodArtifact methodArtifact = new MethodArtifact();
+				methodArtifact.setName("method" + m + "/2[int,java.lang.String]");
+				methodArtifact.setLinesCode(12);
+				methodArtifact.setCyclomaticComplexity(1 + m % 5);
+				methodArtifact.setProject(project);
+				methodArtifact.setClassArtifact(classArtifact);
+				methodArtifacts.add(methodArtifact);
+			}
+			classArtifact.setMethodsArtifact(methodArtifacts);
+			classArtifacts.add(classArtifact);
+		}
+		return classArtifacts;
+	}
+
+	public static ChunkContext chunkContext() {
+		JobExecution jobExecution = new JobExecution(new JobInstance(1L, "benchmark"),
+				new JobParametersBuilder().addLong(BatchConstants.PARAM_ID_PROJECT, (long) ID_PROJECT).toJobParameters());
+		return new ChunkContext(new StepContext(new StepExecution("benchmark", jobExecution)));
+	}
+
+	public static AnalysisMetrics analysisMetrics() {
+		AnalysisMetrics analysisMetrics = new AnalysisMetrics();
+		inject(analysisMetrics, "meterRegistry", new SimpleMeterRegistry());
+		return analysisMetrics;
+	}
+
+	public static void inject(Object target, String field, Object value) {
+		ReflectionTestUtils.setField(target, field, value);
+	}
+}
@@ -0,0 +1,104 @@
+package pt.iscteiul.analyx.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.Chunk;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import pt.iscteiul.analyx.batch.ArtifactIdAllocator;
+import pt.iscteiul.analyx.batch.ArtifactJdbcWriter;
+import pt.iscteiul.analyx.entity.ClassArtifact;
+import pt.iscteiul.analyx.service.ExportService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static pt.iscteiul.analyx.benchmark.BenchmarkFixtures.inject;
+
+/**
+ * The report exports of {@link ExportService} over projects of {@code methods} methods, 20 per class, streamed
+ * from an in-memory H2 in MySQL mode, filled by {@link ArtifactJdbcWriter}, into a discarding stream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ExportBenchmark {
+	private static final int METHODS_PER_CLASS = 20;
+
+	@Param({"10000", "100000", "1000000"})
+	public int methods;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private ExportService exportService;
+
+	@Setup
+	public void setUp() {
+		List<ClassArtifact> classArtifacts = BenchmarkFixtures.classArtifacts(methods, METHODS_PER_CLASS);
+
+		DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:analyx-export;MODE=MySQL;DB_CLOSE_DELAY=-1");
+		new ResourceDatabasePopulator(new ClassPathResource("benchmark-schema.sql")).execute(dataSource);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		ArtifactIdAllocator artifactIdAllocator = new ArtifactIdAllocator();
+		inject(artifactIdAllocator, "jdbcTemplate", jdbcTemplate);
+		inject(artifactIdAllocator, "transactionManager", transactionManager);
+		inject(artifactIdAllocator, "blockSize", 1000);
+		ArtifactJdbcWriter writer = new ArtifactJdbcWriter();
+		inject(writer, "jdbcTemplate", jdbcTemplate);
+		inject(writer, "artifactIdAllocator", artifactIdAllocator);
+		inject(writer, "analysisMetrics", BenchmarkFixtures.analysisMetrics());
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> writer.write(new Chunk<>(classArtifacts)));
+
+		exportService = new ExportService();
+		inject(exportService, "jdbcTemplate", jdbcTemplate);
+		inject(exportService, "objectMapper", new ObjectMapper());
+		inject(exportService, "exportFetchSize", 1000);
+		inject(exportService, "arrowBatchRows", 65536);
+	}
+
+	@TearDown
+	public void tearDown() {
+		jdbcTemplate.execute("shutdown");
+	}
+
+	@Benchmark
+	public void exportToCSV() throws IOException {
+		exportService.writeCSV(BenchmarkFixtures.ID_PROJECT, OutputStream.nullOutputStream());
+	}
+
+	@Benchmark
+	public void exportToJSON() throws IOException {
+		exportService.writeJSON(BenchmarkFixtures.ID_PROJECT, OutputStream.nullOutputStream());
+	}
+
+	@Benchmark
+	public void exportToNDJSON() throws IOException {
+		exportService.writeNDJSON(BenchmarkFixtures.ID_PROJECT, OutputStream.nullOutputStream());
+	}
+
+	@Benchmark
+	public void exportToArrow() throws IOException {
+		exportService.writeArrow(BenchmarkFixtures.ID_PROJECT, OutputStream.nullOutputStream());
+	}
+}
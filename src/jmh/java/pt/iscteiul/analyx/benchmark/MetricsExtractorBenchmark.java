@@ -0,0 +1,114 @@
+package pt.iscteiul.analyx.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import pt.iscteiul.analyx.batch.CKResultConverter;
+import pt.iscteiul.analyx.batch.GuardedCKParser;
+import pt.iscteiul.analyx.batch.MetricsExtractorProcessor;
+import pt.iscteiul.analyx.batch.ProjectFile;
+import pt.iscteiul.analyx.batch.ProjectFileScanner;
+import pt.iscteiul.analyx.entity.Artifact;
+import pt.iscteiul.analyx.entity.SourceFile;
+import pt.iscteiul.analyx.service.ArtifactService;
+import pt.iscteiul.analyx.service.MetricsCacheService;
+import pt.iscteiul.analyx.service.ProjectService;
+import pt.iscteiul.analyx.service.WorkspaceService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static pt.iscteiul.analyx.benchmark.BenchmarkFixtures.inject;
+
+/**
+ * {@link MetricsExtractorProcessor#process} on one source file: read, hash and CK parse in its guarded thread. The source file row
+ * is not saved and the metrics cache is off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsExtractorBenchmark {
+	@Param({"10", "100", "1000"})
+	public int methods;
+
+	private Path projectFolder;
+
+	private ProjectFile javaFile;
+
+	private GuardedCKParser guardedCKParser;
+
+	private MetricsExtractorProcessor processor;
+
+	@Setup
+	public void setUp() throws IOException {
+		projectFolder = Files.createTempDirectory("analyx-benchmark-");
+		Path file = projectFolder.resolve("src/main/java/pt/iscteiul/benchmark/Sample.java");
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, BenchmarkFixtures.javaSource("pt.iscteiul.benchmark", "Sample", methods));
+		javaFile = new ProjectFile(file);
+
+		WorkspaceService workspaceService = mock(WorkspaceService.class);
+		when(workspaceService.getProjectFolder(any())).thenReturn(projectFolder);
+		ProjectService projectService = mock(ProjectService.class);
+		when(projectService.getProjectById(anyLong())).thenReturn(BenchmarkFixtures.project());
+		ArtifactService artifactService = mock(ArtifactService.class);
+		when(artifactService.saveSourceFile(any(), anyString(), anyString())).thenReturn(new SourceFile());
+
+		ProjectFileScanner projectFileScanner = new ProjectFileScanner();
+		inject(projectFileScanner, "workspaceService", workspaceService);
+		inject(projectFileScanner, "artifactService", artifactService);
+
+		guardedCKParser = new GuardedCKParser();
+		inject(guardedCKParser, "analysisMetrics", BenchmarkFixtures.analysisMetrics());
+		inject(guardedCKParser, "timeoutMs", 60_000L);
+		inject(guardedCKParser, "maxFileBytes", Long.MAX_VALUE);
+		inject(guardedCKParser, "maxFileLines", Long.MAX_VALUE);
+		inject(guardedCKParser, "largeFileBytes", Long.MAX_VALUE);
+		inject(guardedCKParser, "maxLargeParses", 1);
+		inject(guardedCKParser, "maxThreads", 1);
+		inject(guardedCKParser, "threadStackKb", 16_384L);
+		guardedCKParser.start();
+
+		processor = new MetricsExtractorProcessor();
+		inject(processor, "guardedCKParser", guardedCKParser);
+		inject(processor, "ckResultConverter", new CKResultConverter());
+		inject(processor, "idProject", (long) BenchmarkFixtures.ID_PROJECT);
+		inject(processor, "projectService", projectService);
+		inject(processor, "artifactService", artifactService);
+		inject(processor, "projectFileScanner", projectFileScanner);
+		// disabled, every invocation parses
+		inject(processor, "metricsCacheService", mock(MetricsCacheService.class));
+	}
+
+	@Benchmark
+	public List<Artifact> process() throws IOException, InterruptedException {
+		return processor.process(javaFile);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		guardedCKParser.stop();
+		FileSystemUtils.deleteRecursively(projectFolder);
+	}
+}
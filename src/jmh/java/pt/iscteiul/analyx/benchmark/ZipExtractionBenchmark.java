@@ -0,0 +1,107 @@
+package pt.iscteiul.analyx.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.util.FileSystemUtils;
+import pt.iscteiul.analyx.batch.ExtractZipFilesTasket;
+import pt.iscteiul.analyx.batch.ProjectFileScanner;
+import pt.iscteiul.analyx.service.ProjectService;
+import pt.iscteiul.analyx.service.WorkspaceService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static pt.iscteiul.analyx.benchmark.BenchmarkFixtures.inject;
+
+/**
+ * {@link ExtractZipFilesTasket} on a synthetic project of {@code files} sources spread over 20 packages,
+ * with some non java entries that are skipped.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZipExtractionBenchmark {
+	private static final int PACKAGES = 20;
+
+	@Param({"100", "1000", "10000"})
+	public int files;
+
+	@Param({"1", "4"})
+	public int extractThreads;
+
+	private Path workFolder;
+
+	private ExtractZipFilesTasket tasklet;
+
+	private ChunkContext chunkContext;
+
+	@Setup
+	public void setUp() throws IOException {
+		workFolder = Files.createTempDirectory("analyx-benchmark-");
+		Path zipFile = workFolder.resolve("project.zip");
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+			for (int i = 0; i < files; i++) {
+				String packageName = "pt.iscteiul.benchmark.p" + i % PACKAGES;
+				put(zip, "src/main/java/" + packageName.replace('.', '/') + "/Class" + i + ".java",
+						BenchmarkFixtures.javaSource(packageName, "Class" + i, 20));
+				if (i % 10 == 0) {
+					put(zip, "src/main/resources/file" + i + ".properties", "key=value" + i);
+				}
+			}
+		}
+
+		WorkspaceService workspaceService = mock(WorkspaceService.class);
+		when(workspaceService.getProjectZipFile(any())).thenReturn(zipFile);
+		when(workspaceService.getProjectFolder(any())).thenReturn(workFolder.resolve("project"));
+		ProjectService projectService = mock(ProjectService.class);
+		when(projectService.getProjectById(anyLong())).thenReturn(BenchmarkFixtures.project());
+
+		tasklet = new ExtractZipFilesTasket();
+		inject(tasklet, "workspaceService", workspaceService);
+		inject(tasklet, "projectService", projectService);
+		inject(tasklet, "projectFileScanner", new ProjectFileScanner());
+		inject(tasklet, "analysisMetrics", BenchmarkFixtures.analysisMetrics());
+		inject(tasklet, "extractThreads", extractThreads);
+		chunkContext = BenchmarkFixtures.chunkContext();
+	}
+
+	@Benchmark
+	public RepeatStatus extract() throws Exception {
+		return tasklet.execute(chunkContext.getStepContext().getStepExecution().createStepContribution(), chunkContext);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileSystemUtils.deleteRecursively(workFolder);
+	}
+
+	private static void put(ZipOutputStream zip, String name, String content) throws IOException {
+		zip.putNextEntry(new ZipEntry(name));
+		zip.write(content.getBytes(StandardCharsets.UTF_8));
+		zip.closeEntry();
+	}
+}
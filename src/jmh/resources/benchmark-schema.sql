@@ -0,0 +1,40 @@
+-- the artifact tables of the Flyway migrations, without the foreign keys to project and source_file
+CREATE TABLE IF NOT EXISTS artifact (
+  id_artifact INT NOT NULL,
+  name VARCHAR(300) NOT NULL,
+  lines_code INT NOT NULL,
+  id_project INT NOT NULL,
+  PRIMARY KEY (id_artifact)
+);
+CREATE INDEX IF NOT EXISTS fk_artifact_project1_idx ON artifact (id_project);
+
+CREATE TABLE IF NOT EXISTS class_artifact (
+  id_class_artifact INT NOT NULL,
+  number_attributes INT NOT NULL,
+  dit INT NOT NULL,
+  cbo INT NOT NULL,
+  noc INT NOT NULL,
+  fan_in INT NULL,
+  fan_out INT NULL,
+  id_source_file INT NULL,
+  id_project INT NOT NULL,
+  method_count INT NOT NULL,
+  complexity INT NOT NULL,
+  lines_code INT NOT NULL,
+  PRIMARY KEY (id_class_artifact),
+  CONSTRAINT fk_class_artifact_artifact1 FOREIGN KEY (id_class_artifact) REFERENCES artifact (id_artifact)
+);
+
+CREATE TABLE IF NOT EXISTS method_artifact (
+  id_method_artifact INT NOT NULL,
+  cyclomatic_complexity INT NOT NULL,
+  id_class_artifact INT NOT NULL,
+  PRIMARY KEY (id_method_artifact),
+  CONSTRAINT fk_method_artifact_artifact FOREIGN KEY (id_method_artifact) REFERENCES artifact (id_artifact),
+  CONSTRAINT fk_method_artifact_class_artifact1 FOREIGN KEY (id_class_artifact) REFERENCES class_artifact (id_class_artifact)
+);
+
+CREATE TABLE IF NOT EXISTS artifact_sequence (
+  next_val INT NOT NULL
+);
+INSERT INTO artifact_sequence (next_val) SELECT 1 WHERE NOT EXISTS (SELECT 1 FROM artifact_sequence);
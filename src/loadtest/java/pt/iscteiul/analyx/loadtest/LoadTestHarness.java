@@ -0,0 +1,176 @@
+package pt.iscteiul.analyx.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+import pt.iscteiul.analyx.AnalyxApplication;
+import pt.iscteiul.analyx.batch.BatchConstants;
+import pt.iscteiul.analyx.entity.AppUser;
+import pt.iscteiul.analyx.entity.Project;
+import pt.iscteiul.analyx.entity.StatusAnalysis;
+import pt.iscteiul.analyx.repository.ProjectRepository;
+import pt.iscteiul.analyx.repository.UserRepository;
+import pt.iscteiul.analyx.service.WorkspaceService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Runs {@code jobProcessProject} end to end on synthetic projects of growing size, against a file based H2 in
+ * MySQL mode (profile {@code loadtest}), and reports per stage the wall time, peak heap, items and artifact
+ * rows per second and the database size. Tuned through system properties:
+ * <ul>
+ *     <li>{@code loadtest.classes}, comma separated project sizes, default {@code 1000,10000,100000};</li>
+ *     <li>{@code loadtest.methods}, {@code loadtest.package-depth}, {@code loadtest.branch-depth},
+ *     {@code loadtest.coupling} and {@code loadtest.seed}, the shape of the generated classes;</li>
+ *     <li>{@code loadtest.dir}, where the corpus, database, workspace and {@code report.csv} go, default {@code target/loadtest};</li>
+ *     <li>any {@code analyx.*} property, e.g. {@code -Danalyx.process-partitions=4}.</li>
+ * </ul>
+ */
+@Slf4j
+public class LoadTestHarness {
+	private static final String LOADTEST_USER = "loadtest";
+	private static final double MB = 1024 * 1024;
+
+	record StageReport(int classes, String stage, BatchStatus status, long wallMillis, double peakHeapMb,
+					   long itemsWritten, double itemsPerSecond, long artifactRows, double rowsPerSecond, double databaseMb) {
+
+		static final String CSV_HEADER = "classes,stage,status,wall_ms,peak_heap_mb,items_written,items_per_s,artifact_rows,rows_per_s,db_mb";
+
+		String toCsv() {
+			return "%d,%s,%s,%d,%.1f,%d,%.1f,%d,%.1f,%.1f".formatted(classes, stage, status, wallMillis, peakHeapMb,
+					itemsWritten, itemsPerSecond, artifactRows, rowsPerSecond, databaseMb);
+		}
+	}
+
+	private final ConfigurableApplicationContext context;
+
+	private final Path workFolder;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final ResourceSampler sampler;
+
+	LoadTestHarness(ConfigurableApplicationContext context, Path workFolder) {
+		this.context = context;
+		this.workFolder = workFolder;
+		this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+		this.sampler = new ResourceSampler(jdbcTemplate);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Path workFolder = Path.of(System.getProperty("loadtest.dir", "target/loadtest")).toAbsolutePath();
+		// a fresh database and workspace every run, the corpus is kept
+		FileSystemUtils.deleteRecursively(workFolder.resolve("db"));
+		FileSystemUtils.deleteRecursively(workFolder.resolve("projects"));
+		System.setProperty("loadtest.dir", workFolder.toString());
+
+		List<StageReport> reports = new ArrayList<>();
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AnalyxApplication.class)
+				.profiles("loadtest")
+				.run(args)) {
+			LoadTestHarness harness = new LoadTestHarness(context, workFolder);
+			try {
+				for (int classes : sizes()) {
+					reports.addAll(harness.run(spec(classes)));
+				}
+			} finally {
+				harness.sampler.close();
+			}
+		}
+
+		List<String> lines = new ArrayList<>();
+		lines.add(StageReport.CSV_HEADER);
+		reports.stream().map(StageReport::toCsv).forEach(lines::add);
+		Path report = Files.write(workFolder.resolve("report.csv"), lines);
+		log.info("Load test report, also in {}:{}{}", report, System.lineSeparator(), String.join(System.lineSeparator(), lines));
+	}
+
+	private List<StageReport> run(SyntheticProjectGenerator.Spec spec) throws Exception {
+		Path zipFile = new SyntheticProjectGenerator(spec).generate(workFolder.resolve("corpus"));
+		Project project = createProject(spec);
+		Files.copy(zipFile, context.getBean(WorkspaceService.class).getProjectZipFile(project), StandardCopyOption.REPLACE_EXISTING);
+
+		log.info("Analyzing {} classes as project {}", spec.classes(), project.getId());
+		Job job = context.getBean(BatchConstants.JOB_PROCESS_PROJECT, Job.class);
+		JobExecution jobExecution = context.getBean(JobLauncher.class).run(job, new JobParametersBuilder()
+				.addLong(BatchConstants.PARAM_ID_PROJECT, project.getId().longValue())
+				.addDate("executionTime", new Date())
+				.toJobParameters());
+		sampler.sampleDatabase();
+
+		List<StageReport> reports = new ArrayList<>();
+		jobExecution.getStepExecutions().stream()
+				// partition workers are accounted for by their manager step
+				.filter(step -> !step.getExecutionContext().containsKey(BatchConstants.PARTITION_INDEX))
+				.sorted(Comparator.comparing(StepExecution::getStartTime))
+				.map(step -> report(spec.classes(), step.getStepName(), step.getStatus(), step.getStartTime(),
+						step.getEndTime(), step.getWriteCount()))
+				.forEach(reports::add);
+		long itemsWritten = reports.stream().mapToLong(StageReport::itemsWritten).sum();
+		reports.add(report(spec.classes(), "job", jobExecution.getStatus(), jobExecution.getStartTime(),
+				jobExecution.getEndTime(), itemsWritten));
+		return reports;
+	}
+
+	private StageReport report(int classes, String stage, BatchStatus status, LocalDateTime start, LocalDateTime end, long itemsWritten) {
+		LocalDateTime stageEnd = end == null ? LocalDateTime.now() : end;
+		long wallMillis = Math.max(1, Duration.between(start, stageEnd).toMillis());
+		long artifactRows = sampler.databaseAt(stageEnd).artifactRows() - sampler.databaseAt(start).artifactRows();
+		return new StageReport(classes, stage, status, wallMillis,
+				sampler.peakHeapBytes(start, stageEnd) / MB,
+				itemsWritten, itemsWritten * 1000.0 / wallMillis,
+				artifactRows, artifactRows * 1000.0 / wallMillis,
+				sampler.databaseAt(stageEnd).sizeBytes() / MB);
+	}
+
+	private Project createProject(SyntheticProjectGenerator.Spec spec) {
+		UserRepository userRepository = context.getBean(UserRepository.class);
+		AppUser user = userRepository.findByName(LOADTEST_USER).orElseGet(() -> {
+			AppUser appUser = new AppUser();
+			appUser.setName(LOADTEST_USER);
+			appUser.setEmail("loadtest@analyx.local");
+			appUser.setPassword("-");
+			return userRepository.save(appUser);
+		});
+		Project project = new Project();
+		project.setUser(user);
+		project.setName("synthetic-" + spec.classes());
+		project.setDescription(spec.fileName());
+		project.setStatusAnalysis(StatusAnalysis.ADDED);
+		project.setGeneratedDate(LocalDateTime.now());
+		return context.getBean(ProjectRepository.class).save(project);
+	}
+
+	private static int[] sizes() {
+		return Arrays.stream(System.getProperty("loadtest.classes", "1000,10000,100000").split(","))
+				.map(String::trim)
+				.mapToInt(Integer::parseInt)
+				.toArray();
+	}
+
+	private static SyntheticProjectGenerator.Spec spec(int classes) {
+		return new SyntheticProjectGenerator.Spec(classes,
+				Integer.getInteger("loadtest.methods", 10),
+				Integer.getInteger("loadtest.package-depth", 3),
+				Integer.getInteger("loadtest.branch-depth", 3),
+				Integer.getInteger("loadtest.coupling", 3),
+				Long.getLong("loadtest.seed", 42L));
+	}
+}
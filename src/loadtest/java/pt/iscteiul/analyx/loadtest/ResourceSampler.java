@@ -0,0 +1,106 @@
+package pt.iscteiul.analyx.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Samples the used heap every {@value #HEAP_INTERVAL_MS} ms and the artifact rows and database size every
+ * {@value #DATABASE_INTERVAL_MS} ms, so the stages of a job can be measured afterwards from their start and end times.
+ */
+class ResourceSampler implements AutoCloseable {
+	private static final long HEAP_INTERVAL_MS = 50;
+	private static final long DATABASE_INTERVAL_MS = 1000;
+	private static final String DATABASE_SIZE = """
+			select coalesce(sum(disk_space_used(table_name)), 0)
+			from information_schema.tables
+			where lower(table_schema) = 'public' and table_type = 'BASE TABLE'
+			""";
+
+	record HeapSample(LocalDateTime time, long usedBytes) {
+	}
+
+	record DatabaseSample(LocalDateTime time, long artifactRows, long sizeBytes) {
+	}
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+	private final List<HeapSample> heapSamples = new ArrayList<>();
+
+	private final List<DatabaseSample> databaseSamples = new ArrayList<>();
+
+	private final Thread thread;
+
+	private volatile boolean running = true;
+
+	ResourceSampler(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+		sampleDatabase();
+		thread = Thread.ofPlatform().daemon().name("loadtest-sampler").start(this::sample);
+	}
+
+	private void sample() {
+		long ticksPerDatabaseSample = DATABASE_INTERVAL_MS / HEAP_INTERVAL_MS;
+		for (long tick = 1; running; tick++) {
+			synchronized (this) {
+				heapSamples.add(new HeapSample(LocalDateTime.now(), memory.getHeapMemoryUsage().getUsed()));
+			}
+			if (tick % ticksPerDatabaseSample == 0) {
+				sampleDatabase();
+			}
+			try {
+				Thread.sleep(HEAP_INTERVAL_MS);
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	void sampleDatabase() {
+		Long rows = jdbcTemplate.queryForObject("select count(*) from artifact", Long.class);
+		Long size = jdbcTemplate.queryForObject(DATABASE_SIZE, Long.class);
+		synchronized (this) {
+			databaseSamples.add(new DatabaseSample(LocalDateTime.now(), rows, size));
+		}
+	}
+
+	synchronized long peakHeapBytes(LocalDateTime start, LocalDateTime end) {
+		return heapSamples.stream()
+				.filter(within(start, end, HeapSample::time))
+				.mapToLong(HeapSample::usedBytes)
+				.max()
+				.orElse(memory.getHeapMemoryUsage().getUsed());
+	}
+
+	/**
+	 * @return the last database sample taken at or before {@code time}
+	 */
+	synchronized DatabaseSample databaseAt(LocalDateTime time) {
+		DatabaseSample last = databaseSamples.getFirst();
+		for (DatabaseSample sample : databaseSamples) {
+			if (sample.time().isAfter(time)) {
+				break;
+			}
+			last = sample;
+		}
+		return last;
+	}
+
+	private static <T> Predicate<T> within(LocalDateTime start, LocalDateTime end, Function<T, LocalDateTime> time) {
+		return sample -> !time.apply(sample).isBefore(start) && !time.apply(sample).isAfter(end);
+	}
+
+	@Override
+	public void close() throws InterruptedException {
+		running = false;
+		thread.join();
+	}
+}
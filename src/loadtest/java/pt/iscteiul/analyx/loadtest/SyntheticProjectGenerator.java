@@ -0,0 +1,148 @@
+package pt.iscteiul.analyx.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a synthetic Java project as a zip, the same way users upload theirs. The same {@link Spec} always
+ * produces the same project, so runs on different machines compare.
+ * <ul>
+ *     <li>classes are spread over {@code packageDepth} levels of packages, {@value #CLASSES_PER_PACKAGE} per package;</li>
+ *     <li>four out of five classes extend the previous one, giving inheritance chains of up to five classes;</li>
+ *     <li>each method nests {@code branchDepth} levels of if and for statements;</li>
+ *     <li>each class holds and calls {@code coupling} other random classes.</li>
+ * </ul>
+ */
+@Slf4j
+public class SyntheticProjectGenerator {
+	private static final int CLASSES_PER_PACKAGE = 50;
+	private static final int PACKAGE_FAN_OUT = 8;
+	private static final String ROOT_PACKAGE = "pt.iscteiul.synthetic";
+
+	public record Spec(int classes, int methodsPerClass, int packageDepth, int branchDepth, int coupling, long seed) {
+		public String fileName() {
+			return "synthetic-c%d-m%d-p%d-b%d-k%d-s%d.zip"
+					.formatted(classes, methodsPerClass, packageDepth, branchDepth, coupling, seed);
+		}
+	}
+
+	private final Spec spec;
+
+	public SyntheticProjectGenerator(Spec spec) {
+		this.spec = spec;
+	}
+
+	/**
+	 * Generates the project in {@code folder}, unless a zip of the same spec is already there.
+	 */
+	public Path generate(Path folder) throws IOException {
+		Path zipFile = folder.resolve(spec.fileName());
+		if (Files.exists(zipFile)) {
+			return zipFile;
+		}
+		Files.createDirectories(folder);
+		Path partial = folder.resolve(spec.fileName() + ".part");
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(partial))) {
+			for (int i = 0; i < spec.classes(); i++) {
+				zip.putNextEntry(new ZipEntry("src/main/java/" + qualifiedName(i).replace('.', '/') + ".java"));
+				write(zip, classSource(i));
+				zip.closeEntry();
+			}
+		}
+		Files.move(partial, zipFile);
+		log.info("Generated {} ({} bytes)", zipFile, Files.size(zipFile));
+		return zipFile;
+	}
+
+	private String classSource(int index) {
+		Random random = new Random(spec.seed() * 31 + index);
+		StringBuilder source = new StringBuilder()
+				.append("package ").append(packageName(index)).append(";\n\n")
+				.append("public class ").append(simpleName(index));
+		if (index % 5 != 0) {
+			source.append(" extends ").append(qualifiedName(index - 1));
+		}
+		source.append(" {\n")
+				.append("\tprotected int counter").append(index).append(";\n");
+		int[] references = new int[Math.min(spec.coupling(), spec.classes() - 1)];
+		for (int r = 0; r < references.length; r++) {
+			references[r] = (index + 1 + random.nextInt(spec.classes() - 1)) % spec.classes();
+			source.append("\tprivate ").append(qualifiedName(references[r])).append(" reference").append(r).append(";\n");
+		}
+		source.append('\n');
+		for (int m = 0; m < spec.methodsPerClass(); m++) {
+			source.append("\tpublic int method").append(m).append("(int value, String text) {\n")
+					.append("\t\tint result = value;\n");
+			appendBranches(source, spec.branchDepth(), 2, random);
+			if (references.length > 0) {
+				int r = random.nextInt(references.length);
+				source.append("\t\tif (reference").append(r).append(" != null) {\n")
+						.append("\t\t\tresult += reference").append(r).append(".method0(value - 1, text);\n")
+						.append("\t\t}\n");
+			}
+			source.append("\t\treturn result + counter").append(index).append(";\n")
+					.append("\t}\n\n");
+		}
+		return source.append("}\n").toString();
+	}
+
+	private void appendBranches(StringBuilder source, int depth, int indent, Random random) {
+		if (depth == 0) {
+			source.append("\t".repeat(indent)).append("result += ").append(random.nextInt(100)).append(";\n");
+			return;
+		}
+		String tabs = "\t".repeat(indent);
+		if (random.nextBoolean()) {
+			source.append(tabs).append("if (result > ").append(random.nextInt(100)).append(" && text != null) {\n");
+			appendBranches(source, depth - 1, indent + 1, random);
+			source.append(tabs).append("} else {\n");
+			appendBranches(source, depth - 1, indent + 1, random);
+			source.append(tabs).append("}\n");
+		} else {
+			source.append(tabs).append("for (int i").append(depth).append(" = 0; i").append(depth)
+					.append(" < value % 10; i").append(depth).append("++) {\n");
+			appendBranches(source, depth - 1, indent + 1, random);
+			source.append(tabs).append("}\n");
+		}
+	}
+
+	private String packageName(int index) {
+		int packageIndex = index / CLASSES_PER_PACKAGE;
+		StringBuilder name = new StringBuilder(ROOT_PACKAGE);
+		int divisor = 1;
+		for (int level = 0; level < spec.packageDepth(); level++) {
+			name.append(".p").append(packageIndex / divisor % PACKAGE_FAN_OUT);
+			divisor *= PACKAGE_FAN_OUT;
+		}
+		return name.toString();
+	}
+
+	private static String simpleName(int index) {
+		return "Synthetic" + index;
+	}
+
+	private String qualifiedName(int index) {
+		return packageName(index) + "." + simpleName(index);
+	}
+
+	private static void write(OutputStream outputStream, String content) throws IOException {
+		outputStream.write(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Generates a single project: {@code classes methodsPerClass packageDepth branchDepth coupling seed folder}.
+	 */
+	public static void main(String[] args) throws IOException {
+		Spec spec = new Spec(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+				Integer.parseInt(args[3]), Integer.parseInt(args[4]), Long.parseLong(args[5]));
+		new SyntheticProjectGenerator(spec).generate(Path.of(args[6]));
+	}
+}
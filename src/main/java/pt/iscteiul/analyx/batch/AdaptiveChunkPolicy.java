@@ -0,0 +1,146 @@
+package pt.iscteiul.analyx.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.repeat.CompletionPolicy;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pt.iscteiul.analyx.entity.Artifact;
+import pt.iscteiul.analyx.entity.ClassArtifact;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Ends the chunks of the file step by the artifacts they will write instead of by a fixed number of files.
+ * Items are all read before any is processed, so the artifacts of the files being read are estimated from
+ * their size with the artifacts per byte measured on the chunks written so far. After each chunk the artifact
+ * target grows while chunks commit faster than {@code analyx.chunk.target-latency-ms} and shrinks when they
+ * are slower or the heap goes over {@code analyx.chunk.heap-budget}.
+ */
+@Slf4j
+@Component
+@StepScope
+public class AdaptiveChunkPolicy implements CompletionPolicy, ItemReadListener<ProjectFile>,
+		ItemWriteListener<List<Artifact>>, ChunkListener {
+	private static final double GROWTH = 1.25;
+	private static final double SHRINK = 0.7;
+	private static final double HEAP_SHRINK = 0.5;
+	private static final double TOLERANCE = 0.2;
+	// weight of the last chunk in the moving average of artifacts per byte
+	private static final double RATIO_WEIGHT = 0.3;
+	// about one artifact per 400 bytes of source until the first chunk is written
+	private static final double INITIAL_ARTIFACTS_PER_BYTE = 1 / 400.0;
+
+	@Autowired
+	private AnalysisMetrics analysisMetrics;
+
+	@Value("${analyx.chunk.target-latency-ms}")
+	private long targetLatencyMs;
+
+	@Value("${analyx.chunk.heap-budget}")
+	private double heapBudget;
+
+	@Value("${analyx.chunk.min-artifacts}")
+	private int minArtifacts;
+
+	@Value("${analyx.chunk.max-artifacts}")
+	private int maxArtifacts;
+
+	@Value("${analyx.chunk.max-files}")
+	private int maxFiles;
+
+	@Value("${analyx.chunk.initial-artifacts}")
+	private double targetArtifacts;
+
+	private double artifactsPerByte = INITIAL_ARTIFACTS_PER_BYTE;
+
+	private long chunkBytes;
+
+	private int chunkFiles;
+
+	private long chunkStart;
+
+	@Override
+	public RepeatContext start(RepeatContext parent) {
+		chunkBytes = 0;
+		chunkFiles = 0;
+		return new RepeatContextSupport(parent);
+	}
+
+	@Override
+	public void update(RepeatContext context) {
+		if (context instanceof RepeatContextSupport support) {
+			support.increment();
+		}
+	}
+
+	@Override
+	public boolean isComplete(RepeatContext context, RepeatStatus result) {
+		return result == null || !result.isContinuable() || isComplete(context);
+	}
+
+	@Override
+	public boolean isComplete(RepeatContext context) {
+		return chunkFiles >= maxFiles || chunkBytes * artifactsPerByte >= targetArtifacts;
+	}
+
+	@Override
+	public void afterRead(ProjectFile item) {
+		chunkFiles++;
+		try {
+			chunkBytes += item.size();
+		} catch (IOException e) {
+			log.debug("Cannot size {}", item, e);
+		}
+	}
+
+	@Override
+	public void beforeChunk(ChunkContext context) {
+		chunkStart = System.nanoTime();
+	}
+
+	@Override
+	public void afterWrite(Chunk<? extends List<Artifact>> items) {
+		long artifacts = 0;
+		for (List<Artifact> fileArtifacts : items) {
+			for (Artifact artifact : fileArtifacts) {
+				artifacts += 1 + (artifact instanceof ClassArtifact c ? c.getMethodsArtifact().size() : 0);
+			}
+		}
+		if (chunkBytes > 0) {
+			double chunkRatio = (double) artifacts / chunkBytes;
+			artifactsPerByte = RATIO_WEIGHT * chunkRatio + (1 - RATIO_WEIGHT) * artifactsPerByte;
+		}
+		analysisMetrics.recordChunk(chunkFiles, artifacts, (long) targetArtifacts);
+	}
+
+	@Override
+	public void afterChunk(ChunkContext context) {
+		long latencyMs = (System.nanoTime() - chunkStart) / 1_000_000;
+		Runtime runtime = Runtime.getRuntime();
+		double heapUsed = (double) (runtime.totalMemory() - runtime.freeMemory()) / runtime.maxMemory();
+		double previous = targetArtifacts;
+		if (heapUsed > heapBudget) {
+			targetArtifacts *= HEAP_SHRINK;
+		} else if (latencyMs > targetLatencyMs * (1 + TOLERANCE)) {
+			targetArtifacts *= SHRINK;
+		} else if (latencyMs < targetLatencyMs * (1 - TOLERANCE)) {
+			targetArtifacts *= GROWTH;
+		}
+		targetArtifacts = Math.clamp(targetArtifacts, minArtifacts, maxArtifacts);
+		if (targetArtifacts != previous) {
+			log.debug("Chunk of {} files took {} ms with {}% of the heap, artifacts per chunk {} -> {}",
+					chunkFiles, latencyMs, Math.round(heapUsed * 100), Math.round(previous), Math.round(targetArtifacts));
+		}
+	}
+}
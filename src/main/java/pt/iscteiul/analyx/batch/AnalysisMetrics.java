@@ -0,0 +1,90 @@
+package pt.iscteiul.analyx.batch;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import pt.iscteiul.analyx.entity.SkipReason;
+
+import java.time.Duration;
+
+/**
+ * Meters of the analysis pipeline, published on {@code /actuator/prometheus}. The step timers are the
+ * {@code spring.batch.step} observations of the batch itself.
+ */
+@Component
+public class AnalysisMetrics {
+	private static final long KB = 1024;
+	private static final long[] SIZE_BUCKETS_KB = {4, 16, 64, 256};
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Time of one CK parse, tagged with a coarse size of the file so the tags stay few.
+	 */
+	public Timer parseTimer(long fileBytes) {
+		return Timer.builder("analyx.ck.parse")
+				.description("CK parse time of one source file")
+				.tag("size", sizeBucket(fileBytes))
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+	}
+
+	public void fileSkipped(SkipReason reason) {
+		meterRegistry.counter("analyx.ck.skipped", "reason", reason.name().toLowerCase()).increment();
+	}
+
+	public void recordExtraction(long bytes, Duration duration) {
+		Timer.builder("analyx.zip.extraction")
+				.description("Extraction time of a project zip")
+				.register(meterRegistry)
+				.record(duration);
+		if (!duration.isZero()) {
+			DistributionSummary.builder("analyx.zip.extraction.throughput")
+					.description("Bytes written per second by the extraction of a project zip")
+					.baseUnit("bytes per second")
+					.register(meterRegistry)
+					.record(bytes * 1e9 / duration.toNanos());
+		}
+	}
+
+	/**
+	 * Size of a chunk of the file step, with the artifact target the adaptive policy had chosen for it.
+	 */
+	public void recordChunk(int files, long artifacts, long targetArtifacts) {
+		DistributionSummary.builder("analyx.chunk.files")
+				.description("Files read per chunk")
+				.register(meterRegistry)
+				.record(files);
+		DistributionSummary.builder("analyx.chunk.artifacts")
+				.description("Artifacts written per chunk")
+				.register(meterRegistry)
+				.record(artifacts);
+		DistributionSummary.builder("analyx.chunk.target.artifacts")
+				.description("Artifacts per chunk aimed at by the adaptive chunk policy")
+				.register(meterRegistry)
+				.record(targetArtifacts);
+	}
+
+	public Timer writerTimer() {
+		return Timer.builder("analyx.writer.batch")
+				.description("Latency of writing the artifacts of one chunk")
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+	}
+
+	public void rowsWritten(String table, int rows) {
+		meterRegistry.counter("analyx.writer.rows", "table", table).increment(rows);
+	}
+
+	private static String sizeBucket(long bytes) {
+		for (long bucketKb : SIZE_BUCKETS_KB) {
+			if (bytes < bucketKb * KB) {
+				return "<" + bucketKb + "KB";
+			}
+		}
+		return ">=" + SIZE_BUCKETS_KB[SIZE_BUCKETS_KB.length - 1] + "KB";
+	}
+}
@@ -0,0 +1,15 @@
+package pt.iscteiul.analyx.batch;
+
+/**
+ * How {@code stepReadProjectFiles} feeds the project sources to CK.
+ */
+public enum AnalysisMode {
+	/**
+	 * One CK run per {@code .java} file, coupling metrics only see the file itself.
+	 */
+	FILE,
+	/**
+	 * One CK run for the whole project folder, sharing the parser environment and source path.
+	 */
+	PROJECT
+}
@@ -0,0 +1,82 @@
+package pt.iscteiul.analyx.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.annotation.AfterChunk;
+import org.springframework.batch.core.annotation.AfterJob;
+import org.springframework.batch.core.annotation.BeforeJob;
+import org.springframework.batch.core.annotation.BeforeStep;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pt.iscteiul.analyx.entity.Project;
+import pt.iscteiul.analyx.service.AnalysisProgressService;
+import pt.iscteiul.analyx.service.ProjectService;
+
+import java.io.IOException;
+
+/**
+ * Feeds {@link AnalysisProgressService} from the analysis jobs: the current step, the files still to analyze
+ * when the reading step starts and the files read after every chunk. In project mode the items read are
+ * classes and the total is unknown.
+ */
+@Slf4j
+@Component
+public class AnalysisProgressListener {
+	@Autowired
+	private AnalysisProgressService analysisProgressService;
+
+	@Autowired
+	private ProjectFileScanner projectFileScanner;
+
+	@Autowired
+	private ProjectService projectService;
+
+	@Value("${analyx.analysis-mode}")
+	private AnalysisMode analysisMode;
+
+	@BeforeJob
+	public void beforeJob(JobExecution jobExecution) {
+		analysisProgressService.jobStarted(idProject(jobExecution));
+	}
+
+	@AfterJob
+	public void afterJob(JobExecution jobExecution) {
+		analysisProgressService.jobFinished(idProject(jobExecution), jobExecution.getStatus().name());
+	}
+
+	@BeforeStep
+	public void beforeStep(StepExecution stepExecution) {
+		if (stepExecution.getExecutionContext().containsKey(BatchConstants.PARTITION_INDEX)) {
+			return;
+		}
+		Long idProject = idProject(stepExecution.getJobExecution());
+		analysisProgressService.stepStarted(idProject, stepExecution.getStepName());
+		if (BatchConstants.STEP_READ_PROJECT_FILES.equals(stepExecution.getStepName()) && AnalysisMode.FILE.equals(analysisMode)) {
+			countPendingFiles(idProject);
+		}
+	}
+
+	@AfterChunk
+	public void afterChunk(ChunkContext chunkContext) {
+		StepExecution stepExecution = chunkContext.getStepContext().getStepExecution();
+		analysisProgressService.filesRead(idProject(stepExecution.getJobExecution()), stepExecution.getId(), stepExecution.getReadCount());
+	}
+
+	private void countPendingFiles(Long idProject) {
+		Project project = projectService.getProjectById(idProject);
+		try (ProjectSources sources = projectFileScanner.open(project)) {
+			long files = projectFileScanner.findAllJavaFiles(sources).size();
+			long analyzed = projectFileScanner.findAnalyzedPaths(project).size();
+			analysisProgressService.filesFound(idProject, Math.max(0, files - analyzed));
+		} catch (IOException e) {
+			log.warn("Cannot count the files of project {}", idProject, e);
+		}
+	}
+
+	private static Long idProject(JobExecution jobExecution) {
+		return jobExecution.getJobParameters().getLong(BatchConstants.PARAM_ID_PROJECT);
+	}
+}
@@ -0,0 +1,71 @@
+package pt.iscteiul.analyx.batch;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out {@code id_artifact} values from blocks reserved in the {@code artifact_sequence} table, so the
+ * writer knows every key before inserting and can batch the rows of the joined tables.
+ */
+@Component
+public class ArtifactIdAllocator {
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${analyx.artifact-id-block-size}")
+	private int blockSize;
+
+	private int nextId;
+
+	private int limit;
+
+	// a lock instead of synchronized, a virtual thread waiting on the reservation query must not pin its carrier
+	private final Lock lock = new ReentrantLock();
+
+	/**
+	 * @return the first of {@code count} consecutive ids reserved for the caller
+	 */
+	public int allocate(int count) {
+		lock.lock();
+		try {
+			if (limit - nextId < count) {
+				int reserved = Math.max(count, blockSize);
+				nextId = reserveBlock(reserved);
+				limit = nextId + reserved;
+			}
+			int first = nextId;
+			nextId += count;
+			return first;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Runs in its own transaction, so the sequence row is locked only for the reservation and not for the whole chunk.
+	 */
+	private int reserveBlock(int size) {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		Integer first = transactionTemplate.execute(status -> {
+			Integer nextValue = jdbcTemplate.queryForObject("select next_val from artifact_sequence for update", Integer.class);
+			jdbcTemplate.update("update artifact_sequence set next_val = ?", nextValue + size);
+			return nextValue;
+		});
+		if (first == null) {
+			throw new IllegalStateException("Table artifact_sequence is empty");
+		}
+		return first;
+	}
+}
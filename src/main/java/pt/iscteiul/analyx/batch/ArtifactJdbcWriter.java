@@ -0,0 +1,113 @@
+package pt.iscteiul.analyx.batch;
+
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import pt.iscteiul.analyx.entity.Artifact;
+import pt.iscteiul.analyx.entity.ClassArtifact;
+import pt.iscteiul.analyx.entity.MethodArtifact;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Inserts the class artifacts of a chunk and their methods with one JDBC batch per table. Ids come from
+ * {@link ArtifactIdAllocator} because {@code IDENTITY} keys would force Hibernate into single row inserts;
+ * with {@code rewriteBatchedStatements} the MySQL driver sends each batch as multi row inserts.
+ * Runs in the chunk transaction, on the same connection as the rest of the step.
+ */
+@Component
+public class ArtifactJdbcWriter implements ItemWriter<Artifact> {
+	private static final String INSERT_ARTIFACT = """
+			insert into artifact (id_artifact, name, lines_code, id_project)
+			values (?, ?, ?, ?)
+			""";
+	private static final String INSERT_CLASS_ARTIFACT = """
+			insert into class_artifact (id_class_artifact, number_attributes, dit, cbo, noc, fan_in, fan_out, id_source_file,
+				id_project, method_count, complexity, lines_code)
+			values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+			""";
+	private static final String INSERT_METHOD_ARTIFACT = """
+			insert into method_artifact (id_method_artifact, cyclomatic_complexity, id_class_artifact)
+			values (?, ?, ?)
+			""";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ArtifactIdAllocator artifactIdAllocator;
+
+	@Autowired
+	private AnalysisMetrics analysisMetrics;
+
+	@Override
+	public void write(Chunk<? extends Artifact> chunk) {
+		analysisMetrics.writerTimer().record(() -> insert(chunk));
+	}
+
+	private void insert(Chunk<? extends Artifact> chunk) {
+		List<ClassArtifact> classArtifacts = chunk.getItems().stream()
+				.map(ClassArtifact.class::cast)
+				.toList();
+		List<MethodArtifact> methodArtifacts = classArtifacts.stream()
+				.flatMap(c -> c.getMethodsArtifact().stream())
+				.toList();
+		List<Artifact> artifacts = new ArrayList<>(classArtifacts.size() + methodArtifacts.size());
+		artifacts.addAll(classArtifacts);
+		artifacts.addAll(methodArtifacts);
+		if (artifacts.isEmpty()) {
+			return;
+		}
+
+		for (ClassArtifact classArtifact : classArtifacts) {
+			classArtifact.setIdProject(classArtifact.getProject().getId());
+			classArtifact.setClassLinesCode(classArtifact.getLinesCode());
+			classArtifact.setMethodCount(classArtifact.getMethodsArtifact().size());
+			classArtifact.setComplexity(classArtifact.getMethodsArtifact().stream()
+					.mapToInt(MethodArtifact::getCyclomaticComplexity)
+					.sum());
+		}
+
+		int nextId = artifactIdAllocator.allocate(artifacts.size());
+		for (Artifact artifact : artifacts) {
+			artifact.setId(nextId++);
+		}
+
+		jdbcTemplate.batchUpdate(INSERT_ARTIFACT, artifacts, artifacts.size(), (ps, a) -> {
+			ps.setInt(1, a.getId());
+			ps.setString(2, a.getName());
+			ps.setInt(3, a.getLinesCode());
+			ps.setInt(4, a.getProject().getId());
+		});
+		jdbcTemplate.batchUpdate(INSERT_CLASS_ARTIFACT, classArtifacts, classArtifacts.size(), (ps, c) -> {
+			ps.setInt(1, c.getId());
+			ps.setInt(2, c.getNumberAttributes());
+			ps.setInt(3, c.getDit());
+			ps.setInt(4, c.getCbo());
+			ps.setInt(5, c.getNoc());
+			ps.setObject(6, c.getFanIn(), Types.INTEGER);
+			ps.setObject(7, c.getFanOut(), Types.INTEGER);
+			ps.setObject(8, isNull(c.getSourceFile()) ? null : c.getSourceFile().getId(), Types.INTEGER);
+			ps.setInt(9, c.getIdProject());
+			ps.setInt(10, c.getMethodCount());
+			ps.setInt(11, c.getComplexity());
+			ps.setInt(12, c.getClassLinesCode());
+		});
+		if (!methodArtifacts.isEmpty()) {
+			jdbcTemplate.batchUpdate(INSERT_METHOD_ARTIFACT, methodArtifacts, methodArtifacts.size(), (ps, m) -> {
+				ps.setInt(1, m.getId());
+				ps.setInt(2, m.getCyclomaticComplexity());
+				ps.setInt(3, m.getClassArtifact().getId());
+			});
+		}
+		analysisMetrics.rowsWritten("artifact", artifacts.size());
+		analysisMetrics.rowsWritten("class_artifact", classArtifacts.size());
+		analysisMetrics.rowsWritten("method_artifact", methodArtifacts.size());
+	}
+}
@@ -8,5 +8,10 @@ public class BatchConstants {
 	public static final String JOB_PROCESS_PROJECT_RESTART = "jobProcessProjectRestart";
 	public static final String PARAM_ID_PROJECT = "idProject";
 	public static final String PARAM_ID_PROJECT_EXPR = "#{jobParameters['" + PARAM_ID_PROJECT + "']}";
+	public static final String PARAM_ID_QUEUED_JOB = "idQueuedJob";
 	public static final String JOB_DELETE_PROJECT = "jobDeleteProject";
+	public static final String PARTITION_INDEX = "partitionIndex";
+	public static final String PARTITION_COUNT = "partitionCount";
+	public static final String STEP_READ_PROJECT_FILES = "stepReadProjectFiles";
+	public static final String STEP_READ_PROJECT_FILES_PARTITION = "stepReadProjectFilesPartition";
 }
@@ -1,7 +1,7 @@
 package pt.iscteiul.analyx.batch;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.repeat.RepeatContext;
 import org.springframework.batch.repeat.exception.ExceptionHandler;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,7 +11,7 @@ import pt.iscteiul.analyx.service.ProjectService;
 
 @Slf4j
 @Component
-@JobScope
+@StepScope
 public class BatchExceptionHandler implements ExceptionHandler {
 	@Value(BatchConstants.PARAM_ID_PROJECT_EXPR)
 	private Long idProject;
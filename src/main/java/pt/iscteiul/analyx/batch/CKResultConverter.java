@@ -0,0 +1,39 @@
+package pt.iscteiul.analyx.batch;
+
+import com.github.mauricioaniche.ck.CKClassResult;
+import com.github.mauricioaniche.ck.CKMethodResult;
+import org.springframework.stereotype.Component;
+import pt.iscteiul.analyx.entity.ClassArtifact;
+import pt.iscteiul.analyx.entity.MethodArtifact;
+import pt.iscteiul.analyx.entity.Project;
+
+@Component
+public class CKResultConverter {
+
+	public ClassArtifact toClassArtifact(CKClassResult result, Project project) {
+		ClassArtifact classArtifact = new ClassArtifact();
+		classArtifact.setProject(project);
+		classArtifact.setName(result.getClassName());
+		classArtifact.setLinesCode(result.getLoc());
+		classArtifact.setCbo(result.getCbo());
+		classArtifact.setDit(result.getDit());
+		classArtifact.setNoc(result.getNoc());
+		classArtifact.setNumberAttributes(result.getNumberOfFields());
+		classArtifact.setFanIn(result.getFanin());
+		classArtifact.setFanOut(result.getFanout());
+		classArtifact.setMethodsArtifact(result.getMethods().stream()
+				.map(m -> toMethodArtifact(m, classArtifact, project))
+				.toList());
+		return classArtifact;
+	}
+
+	private MethodArtifact toMethodArtifact(CKMethodResult m, ClassArtifact classArtifact, Project project) {
+		MethodArtifact methodArtifact = new MethodArtifact();
+		methodArtifact.setName(m.getMethodName());
+		methodArtifact.setClassArtifact(classArtifact);
+		methodArtifact.setCyclomaticComplexity(m.getWmc());
+		methodArtifact.setLinesCode(m.getLoc());
+		methodArtifact.setProject(project);
+		return methodArtifact;
+	}
+}
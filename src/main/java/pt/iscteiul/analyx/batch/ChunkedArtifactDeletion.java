@@ -0,0 +1,72 @@
+package pt.iscteiul.analyx.batch;
+
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pt.iscteiul.analyx.service.ArtifactDeletionService;
+import pt.iscteiul.analyx.service.ArtifactDeletionService.Cursor;
+import pt.iscteiul.analyx.service.ArtifactDeletionService.Phase;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Drives {@link ArtifactDeletionService} from a tasklet returning {@link RepeatStatus#CONTINUABLE}, so each
+ * chunk commits in its own transaction together with the cursor kept in the step execution context,
+ * and a restarted step carries on after the last committed chunk.
+ */
+@Component
+public class ChunkedArtifactDeletion {
+	private static final String PHASE = "deletionPhase";
+	private static final String LAST_ID = "deletionLastId";
+
+	@Autowired
+	private ArtifactDeletionService artifactDeletionService;
+
+	@Value("${analyx.delete-x-artifacts-at-time}")
+	private int deletionChunkSize;
+
+	public RepeatStatus deleteNextChunk(Integer idProject, ChunkContext chunkContext) {
+		ExecutionContext context = executionContext(chunkContext);
+		return save(context, artifactDeletionService.deleteNextChunk(idProject, cursor(context), deletionChunkSize));
+	}
+
+	/**
+	 * Detaches the next source files of the queue, a chunk at a time, then deletes the artifacts without a source
+	 * file. A restarted step finds again the source files still to detach, since changed ones are not deleted yet.
+	 */
+	public RepeatStatus deleteNextStaleChunk(Integer idProject, Deque<Integer> staleSourceFiles, ChunkContext chunkContext) {
+		if (!staleSourceFiles.isEmpty()) {
+			List<Integer> chunk = new ArrayList<>();
+			while (!staleSourceFiles.isEmpty() && chunk.size() < deletionChunkSize) {
+				chunk.add(staleSourceFiles.poll());
+			}
+			artifactDeletionService.detachSourceFiles(idProject, chunk);
+			// the ranges deleted before a restart may hold artifacts detached just now
+			executionContext(chunkContext).remove(PHASE);
+			return RepeatStatus.CONTINUABLE;
+		}
+		ExecutionContext context = executionContext(chunkContext);
+		return save(context, artifactDeletionService.deleteNextDetachedChunk(idProject, cursor(context), deletionChunkSize));
+	}
+
+	private static ExecutionContext executionContext(ChunkContext chunkContext) {
+		return chunkContext.getStepContext().getStepExecution().getExecutionContext();
+	}
+
+	private static Cursor cursor(ExecutionContext context) {
+		return context.containsKey(PHASE)
+				? new Cursor(Phase.valueOf(context.getString(PHASE)), context.getInt(LAST_ID))
+				: Cursor.START;
+	}
+
+	private static RepeatStatus save(ExecutionContext context, Cursor next) {
+		context.putString(PHASE, next.phase().name());
+		context.putInt(LAST_ID, next.lastId());
+		return Phase.FINISHED.equals(next.phase()) ? RepeatStatus.FINISHED : RepeatStatus.CONTINUABLE;
+	}
+}
@@ -0,0 +1,31 @@
+package pt.iscteiul.analyx.batch;
+
+import com.github.mauricioaniche.ck.CKClassResult;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pt.iscteiul.analyx.entity.Artifact;
+import pt.iscteiul.analyx.service.ProjectService;
+
+/**
+ * Maps the classes streamed by {@link ProjectSourceReader} to artifacts, methods are persisted by cascade.
+ */
+@StepScope
+@Component
+public class ClassResultProcessor implements ItemProcessor<CKClassResult, Artifact> {
+	@Autowired
+	private CKResultConverter ckResultConverter;
+
+	@Autowired
+	private ProjectService projectService;
+
+	@Value(BatchConstants.PARAM_ID_PROJECT_EXPR)
+	private Long idProject;
+
+	@Override
+	public Artifact process(CKClassResult item) {
+		return ckResultConverter.toClassArtifact(item, projectService.getProjectById(idProject));
+	}
+}
@@ -0,0 +1,84 @@
+package pt.iscteiul.analyx.batch;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.partition.support.AbstractPartitionHandler;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pt.iscteiul.analyx.service.AnalysisPartitionService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Hands the partitions of stepReadProjectFiles to the worker nodes through the {@code analysis_partition} table
+ * and waits for them in the job repository, so the partitions of one analysis run on every node of the cluster
+ * with MySQL as the only coordinator. A partition whose worker stops its heartbeat fails, and with it the
+ * step; restarting the job runs the failed partitions again.
+ */
+@Slf4j
+@Component
+public class DatabasePartitionHandler extends AbstractPartitionHandler {
+	@Autowired
+	private AnalysisPartitionService analysisPartitionService;
+
+	@Autowired
+	private JobExplorer jobExplorer;
+
+	@Autowired
+	private JobRepository jobRepository;
+
+	@Value("${analyx.process-partitions}")
+	private int processingPartitions;
+
+	@Value("${analyx.cluster.poll-interval-ms}")
+	private long pollIntervalMs;
+
+	@Value("${analyx.cluster.partition-lease-ms}")
+	private long partitionLeaseMs;
+
+	@PostConstruct
+	public void init() {
+		setGridSize(processingPartitions);
+	}
+
+	@Override
+	protected Set<StepExecution> doHandle(StepExecution managerStepExecution,
+										  Set<StepExecution> partitionStepExecutions) throws Exception {
+		long idJobExecution = managerStepExecution.getJobExecutionId();
+		analysisPartitionService.create(idJobExecution, partitionStepExecutions);
+		log.info("{} partitions of job execution {} handed to the workers", partitionStepExecutions.size(), idJobExecution);
+		try {
+			while (analysisPartitionService.countUnfinished(idJobExecution) > 0) {
+				Thread.sleep(pollIntervalMs);
+				analysisPartitionService.expire(idJobExecution, Duration.ofMillis(partitionLeaseMs))
+						.forEach(idStepExecution -> failLost(idJobExecution, idStepExecution));
+			}
+		} finally {
+			analysisPartitionService.deleteByJobExecution(idJobExecution);
+		}
+		return partitionStepExecutions.stream()
+				.map(stepExecution -> jobExplorer.getStepExecution(idJobExecution, stepExecution.getId()))
+				.collect(Collectors.toSet());
+	}
+
+	private void failLost(long idJobExecution, long idStepExecution) {
+		StepExecution stepExecution = jobExplorer.getStepExecution(idJobExecution, idStepExecution);
+		if (stepExecution == null || !stepExecution.getStatus().isRunning()) {
+			return;
+		}
+		log.warn("Partition {} of job execution {} lost its worker", stepExecution.getStepName(), idJobExecution);
+		stepExecution.setStatus(BatchStatus.FAILED);
+		stepExecution.setExitStatus(ExitStatus.FAILED.addExitDescription("Worker stopped its heartbeat"));
+		stepExecution.setEndTime(LocalDateTime.now());
+		jobRepository.update(stepExecution);
+	}
+}
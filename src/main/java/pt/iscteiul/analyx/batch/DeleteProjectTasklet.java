@@ -15,9 +15,15 @@ public class DeleteProjectTasklet implements Tasklet {
 	@Autowired
 	private ProjectService projectService;
 
+	@Autowired
+	private ChunkedArtifactDeletion chunkedArtifactDeletion;
+
 	@Override
 	public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
 		Long idProject = (Long) chunkContext.getStepContext().getJobParameters().get(BatchConstants.PARAM_ID_PROJECT);
+		if (RepeatStatus.CONTINUABLE.equals(chunkedArtifactDeletion.deleteNextChunk(idProject.intValue(), chunkContext))) {
+			return RepeatStatus.CONTINUABLE;
+		}
 		projectService.delete(idProject.intValue());
 		return RepeatStatus.FINISHED;
 	}
@@ -1,33 +1,60 @@
 package pt.iscteiul.analyx.batch;
 
-import org.apache.commons.io.IOUtils;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.StepContribution;
 import org.springframework.batch.core.configuration.annotation.JobScope;
 import org.springframework.batch.core.scope.context.ChunkContext;
 import org.springframework.batch.core.step.tasklet.Tasklet;
 import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import pt.iscteiul.analyx.entity.Project;
 import pt.iscteiul.analyx.service.ProjectService;
 import pt.iscteiul.analyx.service.WorkspaceService;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
+@Slf4j
 @Component
 @JobScope
 public class ExtractZipFilesTasket implements Tasklet {
 
+	private static final String JAVA_EXTENSION = ".java";
+
 	@Autowired
 	private WorkspaceService workspaceService;
 
 	@Autowired
 	private ProjectService projectService;
 
+	@Autowired
+	private ProjectFileScanner projectFileScanner;
+
+	@Autowired
+	private AnalysisMetrics analysisMetrics;
+
+	@Value("${analyx.extract-threads}")
+	private int extractThreads;
+
+	@Value("${spring.threads.virtual.enabled}")
+	private boolean virtualThreads;
+
 	@Override
 	public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
 		Long idProject = (Long) chunkContext.getStepContext().getJobParameters().get(BatchConstants.PARAM_ID_PROJECT);
@@ -35,32 +62,72 @@ public class ExtractZipFilesTasket implements Tasklet {
 		Path projectZipFile = workspaceService.getProjectZipFile(project);
 		Path projectFolder = workspaceService.getProjectFolder(project);
 		workspaceService.deleteProjectFolder(project);
+		if (projectFileScanner.readsFromZip()) {
+			log.info("Skipping extraction, project {} is read straight from {}", idProject, projectZipFile);
+			return RepeatStatus.FINISHED;
+		}
 		Files.createDirectories(projectFolder);
 
-		try (InputStream fis = Files.newInputStream(projectZipFile);
-			 ZipInputStream zis = new ZipInputStream(fis)) {
-
-			ZipEntry entry;
-			// Loop through all entries in the zip file
-			while ((entry = zis.getNextEntry()) != null) {
-				Path newPath = projectFolder.resolve(entry.getName());
-
-				if (entry.isDirectory()) {
-					// Create the directory if it's a directory entry
-					Files.createDirectories(newPath);
-				} else {
-					// Ensure parent directory structure exists for the file
-					Files.createDirectories(newPath.getParent());
-
-					// Write the file content
-					try (var outputStream = Files.newOutputStream(newPath)) {
-						IOUtils.copy(zis, outputStream);
-					}
+		long start = System.nanoTime();
+		try (ZipFile zipFile = new ZipFile(projectZipFile.toFile())) {
+			// only the sources are ever read by the analysis, everything else stays in the zip
+			List<? extends ZipEntry> javaEntries = zipFile.stream()
+					.filter(entry -> !entry.isDirectory())
+					.filter(entry -> entry.getName().endsWith(JAVA_EXTENSION))
+					.toList();
+
+			// create every folder in one pass, so the workers only have to write files
+			for (Path folder : javaEntries.stream().map(entry -> resolve(projectFolder, entry).getParent()).distinct().toList()) {
+				Files.createDirectories(folder);
+			}
+
+			List<Callable<Path>> extractions = javaEntries.stream()
+					.<Callable<Path>>map(entry -> () -> extract(zipFile, entry, resolve(projectFolder, entry)))
+					.toList();
+			long bytes = javaEntries.stream().mapToLong(entry -> Math.max(0, entry.getSize())).sum();
+			Thread.Builder threads = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform();
+			try (ExecutorService pool = Executors.newFixedThreadPool(extractThreads,
+					threads.name("zip-extract-" + idProject + "-", 0).factory())) {
+				for (Future<Path> extraction : pool.invokeAll(extractions)) {
+					waitFor(extraction);
 				}
-				zis.closeEntry();
 			}
+			analysisMetrics.recordExtraction(bytes, Duration.ofNanos(System.nanoTime() - start));
+			log.info("Extracted {} java files of project {}", javaEntries.size(), idProject);
 		}
 
 		return RepeatStatus.FINISHED;
 	}
+
+	private Path resolve(Path projectFolder, ZipEntry entry) {
+		Path path = projectFolder.resolve(entry.getName()).normalize();
+		if (!path.startsWith(projectFolder)) {
+			throw new IllegalArgumentException("Zip entry %s is outside of the project folder".formatted(entry.getName()));
+		}
+		return path;
+	}
+
+	/**
+	 * Entries are inflated independently through the random access {@link ZipFile}, which is safe to share between threads.
+	 */
+	private Path extract(ZipFile zipFile, ZipEntry entry, Path target) throws IOException {
+		try (InputStream inputStream = zipFile.getInputStream(entry);
+			 FileChannel outputChannel = FileChannel.open(target,
+					 StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			long size = entry.getSize() >= 0 ? entry.getSize() : Long.MAX_VALUE;
+			outputChannel.transferFrom(Channels.newChannel(inputStream), 0, size);
+		}
+		return target;
+	}
+
+	private static void waitFor(Future<Path> extraction) throws Exception {
+		try {
+			extraction.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
 }
@@ -0,0 +1,17 @@
+package pt.iscteiul.analyx.batch;
+
+import lombok.Getter;
+import pt.iscteiul.analyx.entity.SkipReason;
+
+/**
+ * A source file that could not be analyzed, the job carries on without it.
+ */
+@Getter
+public class FileSkippedException extends Exception {
+	private final SkipReason reason;
+
+	public FileSkippedException(SkipReason reason, String message, Throwable cause) {
+		super(message, cause);
+		this.reason = reason;
+	}
+}
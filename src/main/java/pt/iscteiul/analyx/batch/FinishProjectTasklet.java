@@ -9,6 +9,7 @@ import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import pt.iscteiul.analyx.service.ProjectService;
+import pt.iscteiul.analyx.service.ProjectSummaryService;
 
 @Slf4j
 @Component
@@ -17,10 +18,14 @@ public class FinishProjectTasklet implements Tasklet {
 	@Autowired
 	private ProjectService projectService;
 
+	@Autowired
+	private ProjectSummaryService projectSummaryService;
+
 	@Override
 	public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
 		log.info("Finishing project tasklet");
 		Long idProject = (Long) chunkContext.getStepContext().getJobParameters().get(BatchConstants.PARAM_ID_PROJECT);
+		projectSummaryService.summarize(idProject.intValue());
 		projectService.markProjectAsAnalysisFinished(idProject);
 		return RepeatStatus.FINISHED;
 	}
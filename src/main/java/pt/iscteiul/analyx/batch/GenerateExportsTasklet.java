@@ -0,0 +1,40 @@
+package pt.iscteiul.analyx.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pt.iscteiul.analyx.entity.Project;
+import pt.iscteiul.analyx.service.ExportService;
+import pt.iscteiul.analyx.service.ProjectService;
+
+@Slf4j
+@Component
+@JobScope
+public class GenerateExportsTasklet implements Tasklet {
+	@Autowired
+	private ProjectService projectService;
+
+	@Autowired
+	private ExportService exportService;
+
+	@Value("${analyx.export.pregenerate}")
+	private boolean pregenerate;
+
+	@Override
+	public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+		if (!pregenerate) {
+			return RepeatStatus.FINISHED;
+		}
+		log.info("Executing GenerateExportsTasklet");
+		Long idProject = (Long) chunkContext.getStepContext().getJobParameters().get(BatchConstants.PARAM_ID_PROJECT);
+		Project project = projectService.getProjectById(idProject);
+		exportService.generateExports(project);
+		return RepeatStatus.FINISHED;
+	}
+}
@@ -0,0 +1,223 @@
+package pt.iscteiul.analyx.batch;
+
+import com.github.mauricioaniche.ck.CKClassResult;
+import com.github.mauricioaniche.ck.MetricsExecutor;
+import com.github.mauricioaniche.ck.metric.ClassLevelMetric;
+import com.github.mauricioaniche.ck.metric.MethodLevelMetric;
+import com.github.mauricioaniche.ck.util.MetricsFinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pt.iscteiul.analyx.entity.SkipReason;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs CK on one file in a thread of its own, parsing the content already read by the caller instead of the file,
+ * with a deadline and a large stack for deeply nested code, turning whatever goes wrong with a single file into a
+ * {@link FileSkippedException}. A parse past its deadline is abandoned but not interrupted: an interrupt while JDT
+ * sets up its JRT file system leaves a broken entry in a static JDT cache and fails every later parse of the JVM.
+ * Its thread stays busy until done and keeps its slot: the pool is bounded by {@code analyx.parse.max-threads}
+ * and a file that finds no free slot within the deadline is skipped too.
+ * <p>
+ * Memory is budgeted by size rather than measured: files over the byte or line limits are skipped unparsed, and
+ * only {@code analyx.parse.max-large-parses} files over {@code analyx.parse.large-file-bytes} are parsed at a
+ * time. A {@link StackOverflowError} only ends the parse of a file nested too deep and is a skip, any other
+ * {@link VirtualMachineError} such as an {@link OutOfMemoryError} fails the step.
+ */
+@Slf4j
+@Component
+public class GuardedCKParser {
+	// the language level CK 0.7.0 parses with
+	private static final int JLS_LEVEL = 11;
+
+	private final MetricsFinder metricsFinder = new MetricsFinder();
+
+	private final Callable<List<ClassLevelMetric>> classLevelMetrics = metricsFinder::allClassLevelMetrics;
+
+	// variables and fields metrics on, as in new CK()
+	private final Callable<List<MethodLevelMetric>> methodLevelMetrics = () -> metricsFinder.allMethodLevelMetrics(true);
+
+	@Autowired
+	private AnalysisMetrics analysisMetrics;
+
+	@Value("${analyx.parse.timeout-ms}")
+	private long timeoutMs;
+
+	@Value("${analyx.parse.max-file-bytes}")
+	private long maxFileBytes;
+
+	@Value("${analyx.parse.max-file-lines}")
+	private long maxFileLines;
+
+	@Value("${analyx.parse.large-file-bytes}")
+	private long largeFileBytes;
+
+	@Value("${analyx.parse.max-large-parses}")
+	private int maxLargeParses;
+
+	@Value("${analyx.parse.max-threads}")
+	private int maxThreads;
+
+	@Value("${analyx.parse.thread-stack-kb}")
+	private long threadStackKb;
+
+	private ThreadPoolExecutor parsers;
+
+	// held from submit until the parse really ends, abandoned ones included
+	private Semaphore parserSlots;
+
+	private Semaphore largeParseSlots;
+
+	@PostConstruct
+	public void start() {
+		parsers = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				Thread.ofPlatform()
+						.daemon()
+						.stackSize(threadStackKb * 1024)
+						.name("ck-parse-", 0)
+						.factory());
+		parsers.allowCoreThreadTimeOut(true);
+		parserSlots = new Semaphore(maxThreads);
+		largeParseSlots = new Semaphore(maxLargeParses);
+	}
+
+	@PreDestroy
+	public void stop() {
+		// no interrupt for the parses still running either
+		parsers.shutdown();
+	}
+
+	/**
+	 * @param path where the file is, in the project folder or in the zip, reported as the file of the results
+	 */
+	public List<CKClassResult> parse(String path, byte[] content) throws FileSkippedException, InterruptedException {
+		checkSize(content);
+		long sizeBytes = content.length;
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+		Semaphore largeParse = sizeBytes > largeFileBytes ? largeParseSlots : null;
+		if (largeParse != null && !largeParse.tryAcquire(remainingNanos(deadline), TimeUnit.NANOSECONDS)) {
+			throw skipped(SkipReason.TIMEOUT, "no slot for a large parse within %d ms".formatted(timeoutMs), null);
+		}
+		if (!parserSlots.tryAcquire(remainingNanos(deadline), TimeUnit.NANOSECONDS)) {
+			release(largeParse);
+			throw skipped(SkipReason.TIMEOUT, "no free parser thread within %d ms".formatted(timeoutMs), null);
+		}
+		FutureTask<List<CKClassResult>> parse = new FutureTask<>(() -> {
+			List<CKClassResult> results = new ArrayList<>();
+			analysisMetrics.parseTimer(sizeBytes).record(() -> new MetricsExecutor(classLevelMetrics, methodLevelMetrics, results::add)
+					.acceptAST(path, parseUnit(path, content)));
+			return results;
+		}) {
+			@Override
+			public void run() {
+				// also runs for a task cancelled before it started
+				try {
+					super.run();
+				} finally {
+					parserSlots.release();
+					release(largeParse);
+				}
+			}
+		};
+		try {
+			parsers.execute(parse);
+		} catch (RejectedExecutionException e) {
+			parserSlots.release();
+			release(largeParse);
+			throw e;
+		}
+		try {
+			return parse.get(remainingNanos(deadline), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			parse.cancel(false);
+			throw skipped(SkipReason.TIMEOUT, "not parsed within %d ms".formatted(timeoutMs), null);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof StackOverflowError) {
+				// unwound with the parse, the thread and the JVM are fine
+				throw skipped(SkipReason.TOO_DEEP, "nested too deep for a %d KB stack".formatted(threadStackKb), cause);
+			}
+			if (cause instanceof VirtualMachineError error) {
+				// the JVM may be left in an unreliable state, this is no longer about one file
+				throw error;
+			}
+			throw skipped(SkipReason.FAILED, cause.toString(), cause);
+		} catch (InterruptedException e) {
+			parse.cancel(false);
+			throw e;
+		}
+	}
+
+	private static long remainingNanos(long deadline) {
+		return Math.max(0, deadline - System.nanoTime());
+	}
+
+	private static void release(Semaphore slots) {
+		if (slots != null) {
+			slots.release();
+		}
+	}
+
+	private static long countLines(byte[] content) {
+		long lines = 1;
+		for (byte b : content) {
+			if (b == '\n') {
+				lines++;
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Same parser settings as {@code CK.calculate} for a single file, which has no other sources to resolve against.
+	 */
+	private static CompilationUnit parseUnit(String path, byte[] content) {
+		ASTParser parser = ASTParser.newParser(JLS_LEVEL);
+		parser.setResolveBindings(true);
+		parser.setBindingsRecovery(true);
+		Map<String, String> options = JavaCore.getOptions();
+		JavaCore.setComplianceOptions(JavaCore.VERSION_11, options);
+		parser.setCompilerOptions(options);
+		parser.setEnvironment(null, new String[0], null, true);
+		parser.setUnitName(path.substring(path.lastIndexOf('/') + 1));
+		parser.setSource(new String(content, StandardCharsets.UTF_8).toCharArray());
+		return (CompilationUnit) parser.createAST(null);
+	}
+
+	/**
+	 * Skips a file over the byte or line limits, which is not worth parsing.
+	 */
+	public void checkSize(byte[] content) throws FileSkippedException {
+		if (content.length > maxFileBytes) {
+			throw skipped(SkipReason.TOO_LARGE, "%d bytes, the limit is %d".formatted(content.length, maxFileBytes), null);
+		}
+		long lines = countLines(content);
+		if (lines > maxFileLines) {
+			throw skipped(SkipReason.TOO_LARGE, "%d lines, the limit is %d".formatted(lines, maxFileLines), null);
+		}
+	}
+
+	private FileSkippedException skipped(SkipReason reason, String message, Throwable cause) {
+		analysisMetrics.fileSkipped(reason);
+		return new FileSkippedException(reason, message, cause);
+	}
+}
@@ -0,0 +1,25 @@
+package pt.iscteiul.analyx.batch;
+
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+
+import java.util.List;
+
+/**
+ * Writes every element of the lists produced for each item, a source file can declare any number of classes.
+ */
+class ListFlatteningItemWriter<T> implements ItemWriter<List<T>> {
+
+	private final ItemWriter<T> delegate;
+
+	ListFlatteningItemWriter(ItemWriter<T> delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void write(Chunk<? extends List<T>> chunk) throws Exception {
+		Chunk<T> flattened = new Chunk<>();
+		chunk.forEach(flattened::addAll);
+		delegate.write(flattened);
+	}
+}
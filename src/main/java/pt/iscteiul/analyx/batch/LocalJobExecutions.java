@@ -0,0 +1,37 @@
+package pt.iscteiul.analyx.batch;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.annotation.AfterJob;
+import org.springframework.batch.core.annotation.BeforeJob;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The job executions running on this node by project, the queue runs one job per project. Lets the scheduler
+ * stop its own execution of a job taken over by another node, and not the one that node started since.
+ */
+@Component
+public class LocalJobExecutions {
+	private final Map<Long, Long> idJobExecutionByProject = new ConcurrentHashMap<>();
+
+	@BeforeJob
+	public void beforeJob(JobExecution jobExecution) {
+		idJobExecutionByProject.put(idProject(jobExecution), jobExecution.getId());
+	}
+
+	@AfterJob
+	public void afterJob(JobExecution jobExecution) {
+		idJobExecutionByProject.remove(idProject(jobExecution), jobExecution.getId());
+	}
+
+	public Optional<Long> findByProject(Long idProject) {
+		return Optional.ofNullable(idJobExecutionByProject.get(idProject));
+	}
+
+	private static Long idProject(JobExecution jobExecution) {
+		return jobExecution.getJobParameters().getLong(BatchConstants.PARAM_ID_PROJECT);
+	}
+}
@@ -1,27 +1,34 @@
 package pt.iscteiul.analyx.batch;
 
-import com.github.mauricioaniche.ck.CK;
-import com.github.mauricioaniche.ck.CKMethodResult;
+import com.github.mauricioaniche.ck.CKClassResult;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.stereotype.Component;
 import pt.iscteiul.analyx.entity.Artifact;
 import pt.iscteiul.analyx.entity.ClassArtifact;
-import pt.iscteiul.analyx.entity.MethodArtifact;
 import pt.iscteiul.analyx.entity.Project;
+import pt.iscteiul.analyx.entity.SourceFile;
+import pt.iscteiul.analyx.service.ArtifactService;
+import pt.iscteiul.analyx.service.MetricsCacheService;
 import pt.iscteiul.analyx.service.ProjectService;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
+@Slf4j
 @StepScope
 @Component
-public class MetricsExtractorProcessor implements ItemProcessor<FileSystemResource, List<Artifact>> {
+public class MetricsExtractorProcessor implements ItemProcessor<ProjectFile, List<Artifact>> {
 	@Autowired
-	private CK ck;
+	private GuardedCKParser guardedCKParser;
+
+	@Autowired
+	private CKResultConverter ckResultConverter;
 
 	@Value(BatchConstants.PARAM_ID_PROJECT_EXPR)
 	private Long idProject;
@@ -29,39 +36,51 @@ public class MetricsExtractorProcessor implements ItemProcessor<FileSystemResour
 	@Autowired
 	private ProjectService projectService;
 
-	@Override
-	public List<Artifact> process(FileSystemResource item) {
-		Project project = projectService.getProjectById(idProject);
-		String javaClassFile = item.getPath();
-		List<Artifact> artifacts = new ArrayList<>();
-		ck.calculate(javaClassFile, result -> {
-			ClassArtifact classArtifact = new ClassArtifact();
-			classArtifact.setProject(project);
-			classArtifact.setName(result.getClassName());
-			classArtifact.setLinesCode(result.getLoc());
-			classArtifact.setCbo(result.getCbo());
-			classArtifact.setDit(result.getDit());
-			classArtifact.setNoc(result.getNoc());
-			classArtifact.setNumberAttributes(result.getNumberOfFields());
-			classArtifact.setFanIn(result.getFanin());
-			classArtifact.setFanOut(result.getFanout());
-			classArtifact.setMethodsArtifact(result.getMethods().stream()
-					.map(m -> getCkMethodResultMethodArtifactFunction(m, classArtifact, project))
-					.toList());
-			artifacts.add(classArtifact);
+	@Autowired
+	private ArtifactService artifactService;
 
+	@Autowired
+	private ProjectFileScanner projectFileScanner;
 
-		});
-		return artifacts;
-	}
+	@Autowired
+	private MetricsCacheService metricsCacheService;
 
-	private MethodArtifact getCkMethodResultMethodArtifactFunction(CKMethodResult m, ClassArtifact classArtifact, Project project) {
-		MethodArtifact methodArtifact = new MethodArtifact();
-		methodArtifact.setName(m.getMethodName());
-		methodArtifact.setClassArtifact(classArtifact);
-		methodArtifact.setCyclomaticComplexity(m.getWmc());
-		methodArtifact.setLinesCode(m.getLoc());
-		methodArtifact.setProject(project);
-		return methodArtifact;
+	@Override
+	public List<Artifact> process(ProjectFile item) throws IOException, InterruptedException {
+		Project project = projectService.getProjectById(idProject);
+		byte[] content = item.readContent();
+		// recorded in the chunk transaction, so a file counts as analyzed only once its artifacts are written
+		SourceFile sourceFile = artifactService.saveSourceFile(project,
+				projectFileScanner.relativePath(project, item),
+				projectFileScanner.sha256(content));
+		String contentHash = null;
+		if (metricsCacheService.isEnabled()) {
+			contentHash = metricsCacheService.contentHash(content);
+			Optional<List<ClassArtifact>> cached = metricsCacheService.find(contentHash, project);
+			if (cached.isPresent()) {
+				cached.get().forEach(classArtifact -> classArtifact.setSourceFile(sourceFile));
+				return new ArrayList<>(cached.get());
+			}
+		}
+		List<CKClassResult> results;
+		try {
+			// parsed from the content in memory, a zip entry is never written to disk
+			results = guardedCKParser.parse(item.path().toString(), content);
+		} catch (FileSkippedException e) {
+			// the file stays recorded as analyzed, so it is not tried again until its content changes
+			log.warn("Skipping {} of project {}: {} {}", sourceFile.getPath(), idProject, e.getReason(), e.getMessage());
+			artifactService.saveSkippedFile(sourceFile, e.getReason(), e.getMessage());
+			return new ArrayList<>();
+		}
+		List<ClassArtifact> artifacts = new ArrayList<>();
+		for (CKClassResult result : results) {
+			ClassArtifact classArtifact = ckResultConverter.toClassArtifact(result, project);
+			classArtifact.setSourceFile(sourceFile);
+			artifacts.add(classArtifact);
+		}
+		if (contentHash != null) {
+			metricsCacheService.put(contentHash, artifacts);
+		}
+		return new ArrayList<>(artifacts);
 	}
 }
@@ -0,0 +1,169 @@
+package pt.iscteiul.analyx.batch;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pt.iscteiul.analyx.config.ClusterNode;
+import pt.iscteiul.analyx.entity.PartitionStatus;
+import pt.iscteiul.analyx.service.AnalysisPartitionService;
+import pt.iscteiul.analyx.service.AnalysisPartitionService.ClaimedPartition;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static pt.iscteiul.analyx.batch.BatchConstants.STEP_READ_PROJECT_FILES_PARTITION;
+
+/**
+ * Runs on this node the partitions handed out by {@link DatabasePartitionHandler} of any node, up to
+ * {@code analyx.cluster.worker-threads} at a time. The partition step reads the project files itself, so the
+ * project files directory must be shared by every node. A partition whose lease this node could not renew has
+ * been failed by its manager, and its step execution is stopped here.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "analyx.cluster.worker", havingValue = "true")
+public class PartitionWorker {
+	@Autowired
+	private AnalysisPartitionService analysisPartitionService;
+
+	@Autowired
+	private JobExplorer jobExplorer;
+
+	@Autowired
+	private JobRepository jobRepository;
+
+	@Autowired
+	@Qualifier(STEP_READ_PROJECT_FILES_PARTITION)
+	private Step partitionStep;
+
+	@Value("${analyx.cluster.worker-threads}")
+	private int workerThreads;
+
+	@Autowired
+	private ClusterNode clusterNode;
+
+	// tasks of the claimed partitions, and the step executions they run once started
+	private final Map<Long, Future<?>> running = new ConcurrentHashMap<>();
+
+	private final Map<Long, StepExecution> stepExecutions = new ConcurrentHashMap<>();
+
+	// not synchronized, the claim runs JDBC which would pin a virtual thread
+	private final ReentrantLock pollLock = new ReentrantLock();
+
+	private ExecutorService executor;
+
+	@PostConstruct
+	public void start() {
+		executor = Executors.newFixedThreadPool(workerThreads, Thread.ofPlatform().name("analysis-worker-", 0).factory());
+		log.info("Partition worker {} running up to {} partitions", clusterNode.getId(), workerThreads);
+	}
+
+	@PreDestroy
+	public void stop() {
+		executor.shutdownNow();
+	}
+
+	@Scheduled(fixedDelayString = "${analyx.cluster.poll-interval-ms}")
+	public void poll() {
+		pollLock.lock();
+		try {
+			while (running.size() < workerThreads) {
+				Optional<ClaimedPartition> claimed = analysisPartitionService.claimNext(clusterNode.getId());
+				if (claimed.isEmpty()) {
+					return;
+				}
+				ClaimedPartition partition = claimed.get();
+				PartitionTask task = new PartitionTask(partition);
+				running.put(partition.id(), task);
+				executor.execute(task);
+			}
+		} finally {
+			pollLock.unlock();
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${analyx.cluster.heartbeat-interval-ms}")
+	public void heartbeat() {
+		if (!running.isEmpty()) {
+			analysisPartitionService.heartbeat(clusterNode.getId(), Set.copyOf(running.keySet()))
+					.forEach(this::stopLost);
+		}
+	}
+
+	private void stopLost(Long idPartition) {
+		Future<?> task = running.get(idPartition);
+		// a partition finished since the heartbeat read the running ones is not lost
+		if (task == null || task.isDone()) {
+			return;
+		}
+		StepExecution stepExecution = stepExecutions.get(idPartition);
+		log.warn("Partition {} lost its lease, stopping {}", idPartition,
+				stepExecution == null ? "it" : stepExecution.getStepName());
+		if (stepExecution != null) {
+			// checked by the step between chunks, the interrupt ends a parse or a wait in the middle of one
+			stepExecution.setTerminateOnly();
+		}
+		task.cancel(true);
+	}
+
+	private PartitionStatus run(ClaimedPartition partition) {
+		StepExecution stepExecution = jobExplorer.getStepExecution(partition.idJobExecution(), partition.idStepExecution());
+		if (stepExecution == null) {
+			log.warn("Step execution {} of partition {} not found", partition.idStepExecution(), partition.id());
+			return PartitionStatus.FAILED;
+		}
+		stepExecutions.put(partition.id(), stepExecution);
+		log.info("Running {} of job execution {}", stepExecution.getStepName(), partition.idJobExecution());
+		try {
+			partitionStep.execute(stepExecution);
+		} catch (Exception e) {
+			// the step records its own failures, this is only reached when it could not even start
+			log.error("{} of job execution {} failed: {}", stepExecution.getStepName(), partition.idJobExecution(), e.getMessage(), e);
+			stepExecution.addFailureException(e);
+			stepExecution.setStatus(BatchStatus.FAILED);
+			jobRepository.update(stepExecution);
+		}
+		return BatchStatus.COMPLETED.equals(stepExecution.getStatus()) ? PartitionStatus.COMPLETED : PartitionStatus.FAILED;
+	}
+
+	/**
+	 * Releases the partition once done, also when it was cancelled before it could start.
+	 */
+	private class PartitionTask extends FutureTask<PartitionStatus> {
+		private final ClaimedPartition partition;
+
+		private PartitionTask(ClaimedPartition partition) {
+			super(() -> PartitionWorker.this.run(partition));
+			this.partition = partition;
+		}
+
+		@Override
+		public void run() {
+			try {
+				super.run();
+			} finally {
+				analysisPartitionService.finish(partition.id(), state() == State.SUCCESS ? resultNow() : PartitionStatus.FAILED);
+				stepExecutions.remove(partition.id());
+				running.remove(partition.id());
+			}
+		}
+	}
+}
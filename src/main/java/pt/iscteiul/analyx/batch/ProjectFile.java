@@ -0,0 +1,19 @@
+package pt.iscteiul.analyx.batch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A java file of a project, in the extracted project folder or inside the uploaded zip opened as a file system.
+ */
+public record ProjectFile(Path path) {
+
+	public long size() throws IOException {
+		return Files.size(path);
+	}
+
+	public byte[] readContent() throws IOException {
+		return Files.readAllBytes(path);
+	}
+}
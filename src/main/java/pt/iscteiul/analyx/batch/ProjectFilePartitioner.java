@@ -0,0 +1,50 @@
+package pt.iscteiul.analyx.batch;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.configuration.annotation.JobScope;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pt.iscteiul.analyx.entity.Project;
+import pt.iscteiul.analyx.service.ProjectService;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@Component
+@JobScope
+public class ProjectFilePartitioner implements Partitioner {
+	@Autowired
+	private ProjectFileScanner projectFileScanner;
+
+	@Autowired
+	private ProjectService projectService;
+
+	@Value(BatchConstants.PARAM_ID_PROJECT_EXPR)
+	private Long idProject;
+
+	@Override
+	@SneakyThrows
+	public Map<String, ExecutionContext> partition(int gridSize) {
+		Project project = projectService.getProjectById(idProject);
+		int files;
+		try (ProjectSources sources = projectFileScanner.open(project)) {
+			files = projectFileScanner.findAllJavaFiles(sources).size();
+		}
+		int partitionCount = Math.max(1, Math.min(gridSize, files));
+		log.info("Splitting {} files of project {} in {} partitions", files, idProject, partitionCount);
+
+		Map<String, ExecutionContext> partitions = new HashMap<>();
+		for (int i = 0; i < partitionCount; i++) {
+			ExecutionContext context = new ExecutionContext();
+			context.putInt(BatchConstants.PARTITION_INDEX, i);
+			context.putInt(BatchConstants.PARTITION_COUNT, partitionCount);
+			partitions.put("partition" + i, context);
+		}
+		return partitions;
+	}
+}
@@ -1,28 +1,37 @@
 package pt.iscteiul.analyx.batch;
 
 import org.springframework.batch.core.configuration.annotation.StepScope;
-import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.stereotype.Component;
 import pt.iscteiul.analyx.entity.Project;
 import pt.iscteiul.analyx.service.ProjectService;
-import pt.iscteiul.analyx.service.WorkspaceService;
 
 import java.io.IOException;
-import java.nio.file.Path;
-import java.util.ArrayDeque;
-import java.util.Arrays;
-import java.util.Queue;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Reads the project files still to be analyzed, keeping its position in the step execution context on every
+ * commit so a restarted step resumes after the last committed chunk. Without partitions the folder is walked
+ * lazily in a fixed order and the position is the last path read; a partition is a precomputed list and the
+ * position is the number of its files read.
+ */
 @Component
 @StepScope
-public class ProjectFileReader implements ItemReader<FileSystemResource> {
+public class ProjectFileReader implements ItemStreamReader<ProjectFile> {
+	private static final String LAST_READ_PATH = "lastReadPath";
+	private static final String READ_COUNT = "readCount";
+
 	@Autowired
-	private WorkspaceService workspaceService;
+	private ProjectFileScanner projectFileScanner;
 
 	@Autowired
 	private ProjectService projectService;
@@ -30,28 +39,77 @@ public class ProjectFileReader implements ItemReader<FileSystemResource> {
 	@Value(BatchConstants.PARAM_ID_PROJECT_EXPR)
 	private Long idProject;
 
-	private boolean recordsLoaded = false;
+	@Value("#{stepExecutionContext['" + BatchConstants.PARTITION_INDEX + "']}")
+	private Integer partitionIndex;
+
+	@Value("#{stepExecutionContext['" + BatchConstants.PARTITION_COUNT + "']}")
+	private Integer partitionCount;
+
+	private Project project;
+
+	private ProjectSources sources;
 
-	private final Queue<FileSystemResource> buffer = new ArrayDeque<>();
+	private Set<String> analyzedPaths;
+
+	private Iterator<ProjectFile> files;
+
+	private String lastReadPath;
+
+	private int readCount;
 
 	@Override
-	public FileSystemResource read() throws IOException {
-		if (recordsLoaded) {
-			return buffer.poll();
+	public void open(ExecutionContext executionContext) {
+		project = projectService.getProjectById(idProject);
+		analyzedPaths = projectFileScanner.findAnalyzedPaths(project);
+		try {
+			sources = projectFileScanner.open(project);
+			if (isNull(partitionIndex)) {
+				lastReadPath = executionContext.getString(LAST_READ_PATH, null);
+				files = projectFileScanner.walkJavaFiles(sources, lastReadPath);
+			} else {
+				readCount = executionContext.getInt(READ_COUNT, 0);
+				List<ProjectFile> partition = projectFileScanner.findJavaFiles(sources, partitionIndex, partitionCount);
+				files = partition.listIterator(Math.min(readCount, partition.size()));
+			}
+		} catch (IOException e) {
+			throw new ItemStreamException("Cannot open the sources of project %d".formatted(idProject), e);
 		}
+	}
 
-		recordsLoaded = true;
-		Project project = projectService.getProjectById(idProject);
-		Path projectFolder = workspaceService.getProjectFolder(project);
-		PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
-		Resource[] resources = resolver.getResources("file:" + projectFolder.toString() + "/**/*.java");
-		buffer.addAll(
-				Arrays.stream(resources)
-						.map(FileSystemResource.class::cast)
-						.toList()
-		);
-		return buffer.poll();
+	@Override
+	public ProjectFile read() {
+		while (files.hasNext()) {
+			ProjectFile file = files.next();
+			lastReadPath = projectFileScanner.relativePath(project, file);
+			readCount++;
+			if (!analyzedPaths.contains(lastReadPath)) {
+				return file;
+			}
+		}
+		return null;
 	}
 
+	@Override
+	public void update(ExecutionContext executionContext) {
+		if (isNull(partitionIndex)) {
+			if (nonNull(lastReadPath)) {
+				executionContext.putString(LAST_READ_PATH, lastReadPath);
+			}
+		} else {
+			executionContext.putInt(READ_COUNT, readCount);
+		}
+	}
 
+	@Override
+	public void close() {
+		if (nonNull(sources)) {
+			try {
+				sources.close();
+			} catch (IOException e) {
+				throw new ItemStreamException("Cannot close the sources of project %d".formatted(idProject), e);
+			} finally {
+				sources = null;
+			}
+		}
+	}
 }
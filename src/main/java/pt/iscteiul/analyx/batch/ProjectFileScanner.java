@@ -0,0 +1,125 @@
+package pt.iscteiul.analyx.batch;
+
+import lombok.SneakyThrows;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pt.iscteiul.analyx.entity.Project;
+import pt.iscteiul.analyx.service.ArtifactService;
+import pt.iscteiul.analyx.service.WorkspaceService;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Component
+public class ProjectFileScanner {
+	@Autowired
+	private WorkspaceService workspaceService;
+
+	@Autowired
+	private ArtifactService artifactService;
+
+	@Value("${analyx.read-from-zip}")
+	private boolean readFromZip;
+
+	@Value("${analyx.analysis-mode}")
+	private AnalysisMode analysisMode;
+
+	/**
+	 * Reading the zip in place only works file by file, the project mode needs the extracted folder as CK source path.
+	 */
+	public boolean readsFromZip() {
+		return readFromZip && AnalysisMode.FILE.equals(analysisMode);
+	}
+
+	public ProjectSources open(Project project) throws IOException {
+		if (readsFromZip()) {
+			FileSystem zip = FileSystems.newFileSystem(workspaceService.getProjectZipFile(project));
+			return new ProjectSources(zip.getRootDirectories().iterator().next());
+		}
+		return new ProjectSources(workspaceService.getProjectFolder(project));
+	}
+
+	/**
+	 * Paths of the files kept from a previous analysis, they do not have to be read again.
+	 */
+	public Set<String> findAnalyzedPaths(Project project) {
+		return artifactService.findAnalyzedPaths(project);
+	}
+
+	public Iterator<ProjectFile> walkJavaFiles(ProjectSources sources, String resumeAfter) {
+		return new SortedJavaFileWalker(sources.root(), resumeAfter);
+	}
+
+	public List<ProjectFile> findAllJavaFiles(ProjectSources sources) throws IOException {
+		try (Stream<Path> paths = Files.walk(sources.root())) {
+			return paths
+					.filter(path -> path.toString().endsWith(".java"))
+					.filter(Files::isRegularFile)
+					.sorted()
+					.map(ProjectFile::new)
+					.toList();
+		}
+	}
+
+	/**
+	 * Splits the project files in {@code partitionCount} groups of about the same size, always giving the
+	 * next largest file to the lightest group, and returns the group at {@code partitionIndex} largest file first.
+	 * Every worker computes the same split, so nothing but the index has to be kept in the execution context.
+	 * The split covers all files, including the ones already analyzed, so it does not change while workers commit.
+	 */
+	public List<ProjectFile> findJavaFiles(ProjectSources sources, int partitionIndex, int partitionCount) throws IOException {
+		List<ProjectFile> largestFirst = findAllJavaFiles(sources).stream()
+				.sorted(Comparator.comparingLong(ProjectFileScanner::sizeOf).reversed())
+				.toList();
+		long[] partitionSizes = new long[partitionCount];
+		List<ProjectFile> partition = new ArrayList<>();
+		for (ProjectFile file : largestFirst) {
+			int lightest = 0;
+			for (int i = 1; i < partitionCount; i++) {
+				if (partitionSizes[i] < partitionSizes[lightest]) {
+					lightest = i;
+				}
+			}
+			partitionSizes[lightest] += sizeOf(file);
+			if (lightest == partitionIndex) {
+				partition.add(file);
+			}
+		}
+		return partition;
+	}
+
+	public String relativePath(Project project, ProjectFile file) {
+		Path path = file.path();
+		Path root = FileSystems.getDefault().equals(path.getFileSystem())
+				? workspaceService.getProjectFolder(project)
+				: path.getRoot();
+		return root.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+	}
+
+	public String sha256(ProjectFile file) throws IOException {
+		return sha256(file.readContent());
+	}
+
+	@SneakyThrows
+	public String sha256(byte[] content) {
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		return HexFormat.of().formatHex(digest.digest(content));
+	}
+
+	@SneakyThrows
+	private static long sizeOf(ProjectFile file) {
+		return file.size();
+	}
+}
@@ -1,26 +1,35 @@
 package pt.iscteiul.analyx.batch;
 
 import com.github.mauricioaniche.ck.CK;
-import jakarta.persistence.EntityManagerFactory;
+import com.github.mauricioaniche.ck.CKClassResult;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.PartitionStepBuilder;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
 import org.springframework.batch.core.step.builder.StepBuilder;
-import org.springframework.batch.item.database.JpaItemWriter;
-import org.springframework.batch.item.database.builder.JpaItemWriterBuilder;
-import org.springframework.batch.item.support.builder.CompositeItemProcessorBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import pt.iscteiul.analyx.entity.Artifact;
 
+import java.util.List;
+
+import static java.util.Objects.isNull;
+
 import static pt.iscteiul.analyx.batch.BatchConstants.JOB_DELETE_PROJECT;
 import static pt.iscteiul.analyx.batch.BatchConstants.JOB_PROCESS_PROJECT;
 import static pt.iscteiul.analyx.batch.BatchConstants.JOB_PROCESS_PROJECT_RESTART;
+import static pt.iscteiul.analyx.batch.BatchConstants.STEP_READ_PROJECT_FILES;
+import static pt.iscteiul.analyx.batch.BatchConstants.STEP_READ_PROJECT_FILES_PARTITION;
 
 @Configuration
 @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection")
@@ -34,6 +43,15 @@ public class ProjectProcessingConfig {
 	@Autowired
 	private BatchExceptionHandler batchExceptionHandler;
 
+	@Autowired
+	private AnalysisProgressListener analysisProgressListener;
+
+	@Autowired
+	private LocalJobExecutions localJobExecutions;
+
+	@Autowired
+	private ObservationRegistry observationRegistry;
+
 	@Bean
 	public CK ck() {
 		return new CK();
@@ -41,9 +59,9 @@ public class ProjectProcessingConfig {
 
 	@Bean(JOB_DELETE_PROJECT)
 	public Job jobDeleteProject(DeleteProjectTasklet deleteProjectTasklet) {
-		return new JobBuilder(JOB_DELETE_PROJECT, jobRepository)
+		return jobBuilder(JOB_DELETE_PROJECT)
 				.start(
-						new StepBuilder("stepDeleteProject", jobRepository)
+						stepBuilder("stepDeleteProject")
 								.tasklet(deleteProjectTasklet, transactionManager)
 								.build()
 				)
@@ -53,13 +71,16 @@ public class ProjectProcessingConfig {
 	@Bean(JOB_PROCESS_PROJECT)
 	public Job jobProcessProject(Step stepExtractZipFiles,
 								 Step stepReadProjectFiles,
+								 Step stepGenerateExports,
 								 Step stepStartProject,
 								 Step stepFinishProjectExecution
 	) {
-		return new JobBuilder(JOB_PROCESS_PROJECT, jobRepository)
+		return jobBuilder(JOB_PROCESS_PROJECT)
+				.listener(analysisProgressListener)
 				.start(stepStartProject)
 				.next(stepExtractZipFiles)
 				.next(stepReadProjectFiles)
+				.next(stepGenerateExports)
 				.next(stepFinishProjectExecution)
 				.build();
 	}
@@ -69,44 +90,60 @@ public class ProjectProcessingConfig {
 			Step stepRemoveCurrentArtifacts,
 			Step stepExtractZipFiles,
 			Step stepReadProjectFiles,
+			Step stepGenerateExports,
 			Step stepStartProject,
 			Step stepFinishProjectExecution
 	) {
-		return new JobBuilder(JOB_PROCESS_PROJECT_RESTART, jobRepository)
+		return jobBuilder(JOB_PROCESS_PROJECT_RESTART)
+				.listener(analysisProgressListener)
 				.start(stepStartProject)
-				.next(stepRemoveCurrentArtifacts)
 				.next(stepExtractZipFiles)
+				.next(stepRemoveCurrentArtifacts)
 				.next(stepReadProjectFiles)
+				.next(stepGenerateExports)
 				.next(stepFinishProjectExecution)
 				.build();
 	}
 
 	@Bean
 	public Step stepRemoveCurrentArtifacts(RemoveCurrentArtifactsTasklet removeCurrentArtifactsTasklet) {
-		return new StepBuilder("stepRemoveCurrentArtifacts", jobRepository)
+		return stepBuilder("stepRemoveCurrentArtifacts")
 				.tasklet(removeCurrentArtifactsTasklet, transactionManager)
+				.listener(analysisProgressListener)
 				.exceptionHandler(batchExceptionHandler)
 				.build();
 	}
 
 	@Bean
 	public Step stepStartProject(StartProjectTasklet startProjectTasklet) {
-		return new StepBuilder("stepStartProject", jobRepository)
+		return stepBuilder("stepStartProject")
 				.tasklet(startProjectTasklet, transactionManager)
+				.listener(analysisProgressListener)
 				.build();
 	}
 
 	@Bean
 	public Step stepFinishProjectExecution(FinishProjectTasklet startProjectTasklet) {
-		return new StepBuilder("stepFinishProjectExecution", jobRepository)
+		return stepBuilder("stepFinishProjectExecution")
 				.tasklet(startProjectTasklet, transactionManager)
+				.listener(analysisProgressListener)
+				.build();
+	}
+
+	@Bean
+	public Step stepGenerateExports(GenerateExportsTasklet generateExportsTasklet) {
+		return stepBuilder("stepGenerateExports")
+				.tasklet(generateExportsTasklet, transactionManager)
+				.listener(analysisProgressListener)
+				.exceptionHandler(batchExceptionHandler)
 				.build();
 	}
 
 	@Bean
 	public Step stepExtractZipFiles(ExtractZipFilesTasket extractZipFiles) {
-		return new StepBuilder("stepExtractZipFiles", jobRepository)
+		return stepBuilder("stepExtractZipFiles")
 				.tasklet(extractZipFiles, transactionManager)
+				.listener(analysisProgressListener)
 				.exceptionHandler(batchExceptionHandler)
 				.build();
 	}
@@ -115,28 +152,109 @@ public class ProjectProcessingConfig {
 	@Bean
 	public Step stepReadProjectFiles(
 			MetricsExtractorProcessor metricsExtractorProcessor,
-			EntityManagerFactory entityManagerFactory,
+			ClassResultProcessor classResultProcessor,
+			ArtifactJdbcWriter artifactJdbcWriter,
 			ProjectFileReader projectFilesReader,
+			ProjectSourceReader projectSourceReader,
+			ProjectFilePartitioner projectFilePartitioner,
+			AdaptiveChunkPolicy adaptiveChunkPolicy,
+			DatabasePartitionHandler databasePartitionHandler,
+			Step stepReadProjectFilesPartition,
 
 			@Value("${analyx.process-x-files-at-time}")
-			int processingChunkFiles
+			int processingChunkFiles,
+
+			@Value("${analyx.chunk.adaptive}")
+			boolean adaptiveChunks,
+
+			@Value("${analyx.process-partitions}")
+			int processingPartitions,
+
+			@Value("${analyx.cluster.remote-partitions}")
+			boolean remotePartitions,
+
+			@Value("${analyx.analysis-mode}")
+			AnalysisMode analysisMode
 	) {
-		JpaItemWriter<Artifact> writer = new JpaItemWriterBuilder<Artifact>()
-				.entityManagerFactory(entityManagerFactory)
-				.usePersist(true)
+		if (AnalysisMode.PROJECT.equals(analysisMode)) {
+			return stepBuilder(STEP_READ_PROJECT_FILES)
+					.<CKClassResult, Artifact>chunk(processingChunkFiles, transactionManager)
+					.reader(projectSourceReader)
+					.processor(classResultProcessor)
+					.writer(artifactJdbcWriter)
+					.listener(analysisProgressListener)
+					.exceptionHandler(batchExceptionHandler)
+					// the reader keeps no position, a restart would write the classes of the first run again
+					.startLimit(1)
+					.build();
+		}
+		if (processingPartitions <= 1 && !remotePartitions) {
+			ListFlatteningItemWriter<Artifact> writer = new ListFlatteningItemWriter<>(artifactJdbcWriter);
+			return fileStep(STEP_READ_PROJECT_FILES, projectFilesReader, metricsExtractorProcessor, writer,
+					processingChunkFiles, adaptiveChunks ? adaptiveChunkPolicy : null);
+		}
+
+		PartitionStepBuilder partitionStep = stepBuilder(STEP_READ_PROJECT_FILES)
+				.partitioner(STEP_READ_PROJECT_FILES_PARTITION, projectFilePartitioner)
+				.step(stepReadProjectFilesPartition)
+				.listener(analysisProgressListener);
+		if (remotePartitions) {
+			// the partitions run on the worker nodes of the cluster, this node among them if it is one
+			return partitionStep.partitionHandler(databasePartitionHandler).build();
+		}
+		SimpleAsyncTaskExecutor partitionTaskExecutor = new SimpleAsyncTaskExecutor("analysis-partition-");
+		partitionTaskExecutor.setConcurrencyLimit(processingPartitions);
+		return partitionStep
+				.gridSize(processingPartitions)
+				.taskExecutor(partitionTaskExecutor)
 				.build();
-		return new StepBuilder("stepReadProjectFiles", jobRepository)
-				.<FileSystemResource, Artifact>chunk(processingChunkFiles, transactionManager)
+	}
+
+	@Bean(STEP_READ_PROJECT_FILES_PARTITION)
+	public Step stepReadProjectFilesPartition(
+			MetricsExtractorProcessor metricsExtractorProcessor,
+			ArtifactJdbcWriter artifactJdbcWriter,
+			ProjectFileReader projectFilesReader,
+			AdaptiveChunkPolicy adaptiveChunkPolicy,
+
+			@Value("${analyx.process-x-files-at-time}")
+			int processingChunkFiles,
+
+			@Value("${analyx.chunk.adaptive}")
+			boolean adaptiveChunks
+	) {
+		return fileStep(STEP_READ_PROJECT_FILES_PARTITION, projectFilesReader, metricsExtractorProcessor,
+				new ListFlatteningItemWriter<>(artifactJdbcWriter), processingChunkFiles,
+				adaptiveChunks ? adaptiveChunkPolicy : null);
+	}
+
+	private Step fileStep(String name,
+						  ProjectFileReader projectFilesReader,
+						  MetricsExtractorProcessor metricsExtractorProcessor,
+						  ListFlatteningItemWriter<Artifact> writer,
+						  int processingChunkFiles,
+						  AdaptiveChunkPolicy adaptiveChunkPolicy) {
+		SimpleStepBuilder<ProjectFile, List<Artifact>> builder = isNull(adaptiveChunkPolicy)
+				? stepBuilder(name).chunk(processingChunkFiles, transactionManager)
+				: stepBuilder(name).<ProjectFile, List<Artifact>>chunk(adaptiveChunkPolicy, transactionManager)
+				.listener((ItemReadListener<ProjectFile>) adaptiveChunkPolicy)
+				.listener((ItemWriteListener<List<Artifact>>) adaptiveChunkPolicy)
+				.listener((ChunkListener) adaptiveChunkPolicy);
+		return builder
 				.reader(projectFilesReader)
-				.processor(new CompositeItemProcessorBuilder<FileSystemResource, Artifact>()
-						.delegates(
-								metricsExtractorProcessor,
-								new ListUnpackingItemProcessor<Artifact>()
-						)
-						.build())
+				.processor(metricsExtractorProcessor)
 				.writer(writer)
+				.listener(analysisProgressListener)
 				.exceptionHandler(batchExceptionHandler)
 				.build();
 	}
 
+	// observed jobs and steps are timed as spring.batch.job and spring.batch.step
+	private JobBuilder jobBuilder(String name) {
+		return new JobBuilder(name, jobRepository).observationRegistry(observationRegistry).listener(localJobExecutions);
+	}
+
+	private StepBuilder stepBuilder(String name) {
+		return new StepBuilder(name, jobRepository).observationRegistry(observationRegistry);
+	}
 }
@@ -0,0 +1,129 @@
+package pt.iscteiul.analyx.batch;
+
+import com.github.mauricioaniche.ck.CK;
+import com.github.mauricioaniche.ck.CKClassResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pt.iscteiul.analyx.entity.Project;
+import pt.iscteiul.analyx.service.ProjectService;
+import pt.iscteiul.analyx.service.WorkspaceService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs CK once over the whole extracted project folder, so JDT shares one environment and
+ * source path across files, and hands each class result to the chunk as soon as it is parsed.
+ * The parse runs on its own thread and the bounded queue keeps it from getting ahead of the writer.
+ * Only the byte and line limits of {@link GuardedCKParser} apply, files over them are left out of the batch:
+ * JDT parses the folder as one batch, so a file cannot be given a deadline or a stack of its own.
+ */
+@Slf4j
+@Component
+@StepScope
+public class ProjectSourceReader implements ItemStreamReader<CKClassResult> {
+	private static final int QUEUE_CAPACITY = 100;
+	private static final long POLL_INTERVAL_MS = 500;
+
+	@Autowired
+	private CK ck;
+
+	@Autowired
+	private WorkspaceService workspaceService;
+
+	@Autowired
+	private ProjectService projectService;
+
+	@Autowired
+	private GuardedCKParser guardedCKParser;
+
+	@Value(BatchConstants.PARAM_ID_PROJECT_EXPR)
+	private Long idProject;
+
+	private final BlockingQueue<CKClassResult> results = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+	private volatile Throwable failure;
+
+	private Thread analysis;
+
+	@Override
+	public void open(ExecutionContext executionContext) {
+		Project project = projectService.getProjectById(idProject);
+		Path projectFolder = workspaceService.getProjectFolder(project);
+		analysis = Thread.ofPlatform()
+				.name("ck-project-" + idProject)
+				.daemon()
+				.start(() -> analyze(projectFolder));
+	}
+
+	@Override
+	public CKClassResult read() throws InterruptedException {
+		while (true) {
+			// checked before polling, so a result queued right before the thread ends is never lost
+			boolean finished = !analysis.isAlive();
+			CKClassResult result = results.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+			if (result != null) {
+				return result;
+			}
+			if (finished) {
+				if (failure != null) {
+					throw new IllegalStateException("Analysis of project %d failed".formatted(idProject), failure);
+				}
+				return null;
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		if (analysis != null && analysis.isAlive()) {
+			// JDT does not stop mid parse, but every result after this is dropped instead of blocking
+			analysis.interrupt();
+		}
+		results.clear();
+	}
+
+	private void analyze(Path projectFolder) {
+		try {
+			Path[] javaFiles = withinLimits(projectFolder);
+			log.info("Analyzing {} files of project folder {} in a single pass", javaFiles.length, projectFolder);
+			ck.calculate(projectFolder, this::enqueue, javaFiles);
+		} catch (Throwable e) {
+			failure = e;
+		}
+	}
+
+	private Path[] withinLimits(Path projectFolder) throws IOException {
+		List<Path> javaFiles = new ArrayList<>();
+		for (Iterator<ProjectFile> files = new SortedJavaFileWalker(projectFolder, null); files.hasNext(); ) {
+			ProjectFile file = files.next();
+			try {
+				guardedCKParser.checkSize(file.readContent());
+				javaFiles.add(file.path());
+			} catch (FileSkippedException e) {
+				log.warn("Skipping {} of project {}: {} {}", projectFolder.relativize(file.path()), idProject, e.getReason(), e.getMessage());
+			}
+		}
+		return javaFiles.toArray(Path[]::new);
+	}
+
+	private void enqueue(CKClassResult result) {
+		try {
+			results.put(result);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Analysis of project %d was interrupted".formatted(idProject), e);
+		}
+	}
+}
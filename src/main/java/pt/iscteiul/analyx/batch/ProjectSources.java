@@ -0,0 +1,24 @@
+package pt.iscteiul.analyx.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+
+/**
+ * Where the java sources of a project are read from, the extracted project folder or the root of the
+ * uploaded zip opened as a file system. Closing releases the zip, the folder needs no cleanup.
+ */
+public record ProjectSources(Path root) implements Closeable {
+
+	public boolean isZip() {
+		return !FileSystems.getDefault().equals(root.getFileSystem());
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (isZip()) {
+			root.getFileSystem().close();
+		}
+	}
+}
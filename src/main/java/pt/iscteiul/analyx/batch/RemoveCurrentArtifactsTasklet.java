@@ -7,11 +7,29 @@ import org.springframework.batch.core.scope.context.ChunkContext;
 import org.springframework.batch.core.step.tasklet.Tasklet;
 import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import pt.iscteiul.analyx.entity.Project;
+import pt.iscteiul.analyx.entity.SourceFile;
 import pt.iscteiul.analyx.service.ArtifactService;
 import pt.iscteiul.analyx.service.ProjectService;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Runs once the sources are available, after the zip is extracted or straight from the zip. In file mode only the
+ * artifacts of source files that were changed or removed since the last analysis are deleted, the unchanged ones are
+ * kept and skipped by {@link ProjectFileReader}. In project mode metrics depend on every file, so everything is
+ * deleted. Either way the deletion runs a chunk at a time.
+ */
 @Slf4j
 @Component
 @JobScope
@@ -22,13 +40,49 @@ public class RemoveCurrentArtifactsTasklet implements Tasklet {
 	@Autowired
 	private ProjectService projectService;
 
+	@Autowired
+	private ProjectFileScanner projectFileScanner;
+
+	@Autowired
+	private ChunkedArtifactDeletion chunkedArtifactDeletion;
+
+	@Value("${analyx.analysis-mode}")
+	private AnalysisMode analysisMode;
+
+	private Deque<Integer> staleSourceFiles;
 
 	@Override
 	public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
 		log.info("Executing RemoveCurrentArtifactsTasklet");
 		Long idProject = (Long) chunkContext.getStepContext().getJobParameters().get(BatchConstants.PARAM_ID_PROJECT);
 		Project project = projectService.getProjectById(idProject);
-		artifactService.deleteByProject(project);
-		return RepeatStatus.FINISHED;
+		if (AnalysisMode.PROJECT.equals(analysisMode)) {
+			return chunkedArtifactDeletion.deleteNextChunk(project.getId(), chunkContext);
+		}
+
+		if (isNull(staleSourceFiles)) {
+			staleSourceFiles = findStaleSourceFiles(project);
+		}
+		return chunkedArtifactDeletion.deleteNextStaleChunk(project.getId(), staleSourceFiles, chunkContext);
+	}
+
+	/**
+	 * Source files whose content changed or that were removed since the last analysis, found once per execution.
+	 */
+	private Deque<Integer> findStaleSourceFiles(Project project) throws IOException {
+		Map<String, String> currentHashes = new HashMap<>();
+		try (ProjectSources sources = projectFileScanner.open(project)) {
+			for (ProjectFile file : projectFileScanner.findAllJavaFiles(sources)) {
+				currentHashes.put(projectFileScanner.relativePath(project, file), projectFileScanner.sha256(file));
+			}
+		}
+		List<SourceFile> sourceFiles = artifactService.findSourceFiles(project);
+		Deque<Integer> staleSourceFiles = sourceFiles.stream()
+				.filter(sourceFile -> !sourceFile.getSha256().equals(currentHashes.get(sourceFile.getPath())))
+				.map(SourceFile::getId)
+				.collect(Collectors.toCollection(ArrayDeque::new));
+		log.info("{} of {} source files of project {} changed or were removed",
+				staleSourceFiles.size(), sourceFiles.size(), project.getId());
+		return staleSourceFiles;
 	}
 }
@@ -0,0 +1,114 @@
+package pt.iscteiul.analyx.batch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Lazily walks the java files under a root, depth first with the entries of every folder sorted by name,
+ * so the order is the same on every run. Only the folders on the current branch are listed at a time.
+ * A walk can resume after a given relative path, skipping whole folders that come before it.
+ */
+class SortedJavaFileWalker implements Iterator<ProjectFile> {
+
+	private final Path root;
+
+	private final List<String> resumeAfter;
+
+	private final Deque<Iterator<Path>> folders = new ArrayDeque<>();
+
+	private Path next;
+
+	/**
+	 * @param resumeAfter relative path with {@code /} separators of the last file already read, or null to start from the beginning
+	 */
+	SortedJavaFileWalker(Path root, String resumeAfter) {
+		this.root = root;
+		this.resumeAfter = isNull(resumeAfter) ? List.of() : Arrays.asList(resumeAfter.split("/"));
+		folders.push(list(root));
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (isNull(next)) {
+			next = advance();
+		}
+		return !isNull(next);
+	}
+
+	@Override
+	public ProjectFile next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Path file = next;
+		next = null;
+		return new ProjectFile(file);
+	}
+
+	private Path advance() {
+		while (!folders.isEmpty()) {
+			Iterator<Path> entries = folders.peek();
+			if (!entries.hasNext()) {
+				folders.pop();
+				continue;
+			}
+			Path entry = entries.next();
+			Path relative = root.relativize(entry);
+			int order = compareToResumePoint(relative);
+			if (Files.isDirectory(entry)) {
+				// a folder equal to a prefix of the resume point still holds files after it
+				if (order >= 0) {
+					folders.push(list(entry));
+				}
+			} else if (isAfterResumePoint(relative, order) && isJavaFile(entry)) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	private boolean isAfterResumePoint(Path relative, int order) {
+		return order > 0 || (order == 0 && relative.getNameCount() > resumeAfter.size());
+	}
+
+	/**
+	 * Compares name by name up to the shorter of both paths, 0 when one is a prefix of the other.
+	 */
+	private int compareToResumePoint(Path relative) {
+		int common = Math.min(relative.getNameCount(), resumeAfter.size());
+		for (int i = 0; i < common; i++) {
+			int order = relative.getName(i).toString().compareTo(resumeAfter.get(i));
+			if (order != 0) {
+				return order;
+			}
+		}
+		return 0;
+	}
+
+	private static boolean isJavaFile(Path path) {
+		return path.getFileName().toString().endsWith(".java") && Files.isRegularFile(path);
+	}
+
+	private static Iterator<Path> list(Path folder) {
+		try (Stream<Path> entries = Files.list(folder)) {
+			return entries
+					.sorted(Comparator.comparing(entry -> entry.getFileName().toString()))
+					.toList()
+					.iterator();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -8,6 +8,7 @@ import org.springframework.batch.core.step.tasklet.Tasklet;
 import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import pt.iscteiul.analyx.service.ExportService;
 import pt.iscteiul.analyx.service.ProjectService;
 
 @Slf4j
@@ -17,11 +18,16 @@ public class StartProjectTasklet implements Tasklet {
 	@Autowired
 	private ProjectService projectService;
 
+	@Autowired
+	private ExportService exportService;
+
 	@Override
-	public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+	public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
 		log.info("Executing StartProjectTasklet");
 		Long idProject = (Long) chunkContext.getStepContext().getJobParameters().get(BatchConstants.PARAM_ID_PROJECT);
 		projectService.markProjectAsAnalysisStarted(idProject);
+		// exports of the previous analysis no longer match the artifacts
+		exportService.deleteGeneratedExports(projectService.getProjectById(idProject));
 		return RepeatStatus.FINISHED;
 	}
 }
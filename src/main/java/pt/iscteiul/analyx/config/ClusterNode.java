@@ -0,0 +1,36 @@
+package pt.iscteiul.analyx.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+
+/**
+ * Name of this node in the tables shared by the cluster: {@code analyx.cluster.node-id}, or host:pid when blank.
+ */
+@Component
+public class ClusterNode {
+	@Value("${analyx.cluster.node-id}")
+	private String configuredId;
+
+	@Getter
+	private String id;
+
+	@PostConstruct
+	@SneakyThrows
+	public void init() {
+		id = configuredId.isBlank()
+				? InetAddress.getLocalHost().getHostName() + ":" + ProcessHandle.current().pid()
+				: configuredId;
+	}
+
+	/**
+	 * Whether the id survives a restart of this node, so work still claimed under it was left by a previous run.
+	 */
+	public boolean isStable() {
+		return !configuredId.isBlank();
+	}
+}
@@ -1,17 +1,72 @@
 package pt.iscteiul.analyx.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 public class SecurityConfig {
+	public static final String METRICS_ROLE = "METRICS";
+
+	@Value("${analyx.actuator.username}")
+	private String actuatorUsername;
+
+	@Value("${analyx.actuator.password}")
+	private String actuatorPassword;
+
+	/**
+	 * Actuator endpoints other than health need HTTP basic credentials of the metrics role, held by the
+	 * configured scraper account only; without a password no one has it.
+	 */
+	@Bean
+	@Order(1)
+	public SecurityFilterChain actuatorSecurityFilterChain(HttpSecurity http, PasswordEncoder passwordEncoder)
+			throws Exception {
+		List<UserDetails> scrapers = new ArrayList<>();
+		if (!actuatorPassword.isBlank()) {
+			scrapers.add(User.withUsername(actuatorUsername)
+					.password(passwordEncoder.encode(actuatorPassword))
+					.roles(METRICS_ROLE)
+					.build());
+		}
+		http.securityMatcher(EndpointRequest.toAnyEndpoint())
+				.csrf(AbstractHttpConfigurer::disable)
+				.authorizeHttpRequests(authorize -> authorize
+						.requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+						.anyRequest().hasRole(METRICS_ROLE)
+				)
+				.userDetailsService(new InMemoryUserDetailsManager(scrapers))
+				.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+				// plain statuses, an error dispatch would land on the login redirect of the application chain
+				.httpBasic(basic -> basic.authenticationEntryPoint((request, response, e) -> {
+					response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Basic realm=\"actuator\"");
+					response.setStatus(HttpStatus.UNAUTHORIZED.value());
+				}))
+				.exceptionHandling(exceptions -> exceptions
+						.accessDeniedHandler((request, response, e) -> response.setStatus(HttpStatus.FORBIDDEN.value())));
+		return http.build();
+	}
+
 	@Bean
+	@Order(2)
 	public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 		// 1. Authorization rules
 		http.cors(Customizer.withDefaults())
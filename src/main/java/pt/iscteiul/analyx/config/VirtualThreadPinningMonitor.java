@@ -0,0 +1,74 @@
+package pt.iscteiul.analyx.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Logs, with the stack that caused it, every virtual thread that stays pinned to its carrier longer than the
+ * threshold, typically blocking inside a {@code synchronized} block of a driver or of Hibernate.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "analyx.virtual-threads.pinning-diagnostics", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+	private static final String VIRTUAL_THREAD_PINNED = "jdk.VirtualThreadPinned";
+	private static final int STACK_DEPTH = 15;
+
+	@Value("${analyx.virtual-threads.pinning-threshold-ms}")
+	private long pinningThresholdMs;
+
+	private RecordingStream recordingStream;
+
+	@PostConstruct
+	public void start() {
+		recordingStream = new RecordingStream();
+		recordingStream.enable(VIRTUAL_THREAD_PINNED)
+				.withThreshold(Duration.ofMillis(pinningThresholdMs))
+				.withStackTrace();
+		recordingStream.onEvent(VIRTUAL_THREAD_PINNED, this::logPinning);
+		recordingStream.startAsync();
+		log.info("Reporting virtual threads pinned for more than {} ms", pinningThresholdMs);
+	}
+
+	@PreDestroy
+	public void stop() {
+		recordingStream.close();
+	}
+
+	private void logPinning(RecordedEvent event) {
+		RecordedThread thread = event.getThread();
+		log.warn("Virtual thread {} pinned its carrier for {} ms{}{}",
+				isNull(thread) ? "?" : thread.getJavaName(),
+				event.getDuration().toMillis(),
+				System.lineSeparator(),
+				format(event.getStackTrace()));
+	}
+
+	private static String format(RecordedStackTrace stackTrace) {
+		if (isNull(stackTrace)) {
+			return "\t(no stack trace)";
+		}
+		return stackTrace.getFrames().stream()
+				.limit(STACK_DEPTH)
+				.map(VirtualThreadPinningMonitor::format)
+				.collect(Collectors.joining(System.lineSeparator()));
+	}
+
+	private static String format(RecordedFrame frame) {
+		return "\tat %s.%s:%d".formatted(frame.getMethod().getType().getName(), frame.getMethod().getName(), frame.getLineNumber());
+	}
+}
@@ -1,6 +1,9 @@
 package pt.iscteiul.analyx.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
@@ -10,19 +13,25 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.util.UriComponentsBuilder;
+import pt.iscteiul.analyx.dto.ClassPageDTO;
+import pt.iscteiul.analyx.dto.ClassSort;
 import pt.iscteiul.analyx.dto.ProjectDTO;
 import pt.iscteiul.analyx.entity.ClassArtifact;
-import pt.iscteiul.analyx.entity.MethodArtifact;
 import pt.iscteiul.analyx.entity.Project;
+import pt.iscteiul.analyx.service.AnalysisProgressService;
 import pt.iscteiul.analyx.service.ArtifactService;
 import pt.iscteiul.analyx.service.ProjectBatchServiceManager;
 import pt.iscteiul.analyx.service.ProjectService;
+import pt.iscteiul.analyx.service.ProjectSummaryService;
 import pt.iscteiul.analyx.util.ControllerKeys;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import static java.util.Objects.isNull;
 
@@ -38,13 +47,26 @@ public class ProjectsController {
 	@Autowired
 	private ArtifactService artifactService;
 
+	@Autowired
+	private AnalysisProgressService analysisProgressService;
+
+	@Autowired
+	private ProjectSummaryService projectSummaryService;
+
 	@GetMapping("/dashboard")
 	public String home(Authentication auth, Model model) {
 		List<Project> projects = projectService.findAllByUserName(auth.getName());
 		model.addAttribute("projects", projects);
+		model.addAttribute("summaries", projectSummaryService.findByProjects(projects));
 		return "dashboard";
 	}
 
+	@GetMapping(value = "/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	@ResponseBody
+	public SseEmitter progress(Authentication auth) {
+		return analysisProgressService.subscribe(auth.getName());
+	}
+
 	@GetMapping("/new")
 	public String newProject(Model model) {
 		model.addAttribute("projectDTO", ProjectDTO.builder().build());
@@ -52,31 +74,38 @@ public class ProjectsController {
 	}
 
 	@GetMapping("/{idProject}/view")
-	public String viewProject(Model model, @PathVariable Integer idProject, Authentication auth) {
-		String username = auth.getName();
-		Project project = projectService.getProjectByIdAndUser(idProject, username);
-		List<ClassArtifact> classArtifacts = artifactService.findByProject(idProject, username);
+	public String viewProject(Model model, @PathVariable Integer idProject, ClassPageDTO classPage,
+							  Authentication auth, HttpServletRequest request) {
+		Project project = projectService.getProjectByIdAndUser(idProject, auth.getName());
+		Window<ClassArtifact> classArtifacts = artifactService.findClassPage(idProject, classPage);
 		model.addAttribute("classArtifacts", classArtifacts);
-		long totalLinesOfCode = classArtifacts.stream()
-				.flatMap(c -> c.getMethodsArtifact().stream())
-				.collect(Collectors.summarizingInt(MethodArtifact::getLinesCode))
-				.getSum();
-		long totalMethods = classArtifacts.stream()
-				.mapToLong(c -> c.getMethodsArtifact().size())
-				.sum();
-		model.addAttribute("totalMethods", totalMethods);
-
-		double averageCyclomaticComplexity = classArtifacts.stream()
-				.flatMap(c -> c.getMethodsArtifact().stream())
-				.collect(Collectors.summarizingDouble(MethodArtifact::getCyclomaticComplexity))
-				.getAverage();
-		model.addAttribute("averageCyclomaticComplexity", averageCyclomaticComplexity);
-
-		model.addAttribute("totalLinesOfCode", totalLinesOfCode);
+		model.addAttribute("classPage", classPage);
+		model.addAttribute("classSorts", ClassSort.values());
+		if (classArtifacts.hasNext()) {
+			Map<String, Object> lastKeys = ((KeysetScrollPosition) classArtifacts.positionAt(classArtifacts.size() - 1)).getKeys();
+			model.addAttribute("nextPageUrl", pageUrl(request)
+					.replaceQueryParam("afterValue", lastKeys.get(classPage.sortOrDefault().getProperty()))
+					.replaceQueryParam("afterId", lastKeys.get(ClassSort.ID.getProperty()))
+					.toUriString());
+		}
+		if (!classPage.firstPage()) {
+			model.addAttribute("firstPageUrl", pageUrl(request)
+					.replaceQueryParam("afterValue")
+					.replaceQueryParam("afterId")
+					.toUriString());
+		}
+		model.addAttribute("summary", projectSummaryService.getSummary(project).orElse(null));
 		model.addAttribute("project", project);
 		return "view";
 	}
 
+	@GetMapping("/{idProject}/classes/{idClassArtifact}/methods")
+	public String classMethods(Model model, @PathVariable Integer idProject, @PathVariable Integer idClassArtifact, Authentication auth) {
+		projectService.getProjectByIdAndUser(idProject, auth.getName());
+		model.addAttribute("methods", artifactService.findMethods(idProject, idClassArtifact));
+		return "view :: methodRows";
+	}
+
 	@GetMapping("{idProject}/edit")
 	public String editProject(Model model, @PathVariable Integer idProject) {
 		ProjectDTO projectDTO = projectService.getProjectForEditing(idProject);
@@ -122,4 +151,8 @@ public class ProjectsController {
 
 		return "redirect:/projects/dashboard";
 	}
+
+	private static UriComponentsBuilder pageUrl(HttpServletRequest request) {
+		return UriComponentsBuilder.fromPath(request.getRequestURI()).query(request.getQueryString());
+	}
 }
@@ -1,42 +1,133 @@
 package pt.iscteiul.analyx.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.ResponseBody;
-import pt.iscteiul.analyx.entity.ClassArtifact;
-import pt.iscteiul.analyx.service.ArtifactService;
+import org.springframework.web.context.request.ServletWebRequest;
+import pt.iscteiul.analyx.entity.Project;
 import pt.iscteiul.analyx.service.ExportService;
+import pt.iscteiul.analyx.service.ExportService.Format;
+import pt.iscteiul.analyx.service.ProjectService;
 
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 @Controller
 @RequestMapping("/reports")
 public class ReportsController {
+	private static final String GZIP = "gzip";
+	private static final int GZIP_BUFFER_BYTES = 64 * 1024;
 
 	@Autowired
 	private ExportService exportService;
 
 	@Autowired
-	private ArtifactService artifactService;
+	private ProjectService projectService;
 
 	@GetMapping(value = "/{idProject}/csv", produces = "text/csv")
-	@ResponseBody
-	public ByteArrayResource exportToCSV(@PathVariable Integer idProject, Authentication auth) {
-		List<ClassArtifact> classArtifacts = artifactService.findByProject(idProject, auth.getName());
-		return exportService.exportToCSV(classArtifacts);
+	public ResponseEntity<Resource> exportToCSV(@PathVariable Integer idProject, Authentication auth,
+												ServletWebRequest request) throws IOException {
+		return export(idProject, Format.CSV, auth, request);
 	}
 
 	@GetMapping(value = "/{idProject}/json", produces = MediaType.APPLICATION_JSON_VALUE)
-	@ResponseBody
-	public List<Map<String, Object>> exportToJSON(@PathVariable Integer idProject, Authentication auth) {
-		List<ClassArtifact> classArtifacts = artifactService.findByProject(idProject, auth.getName());
-		return exportService.exportToJSON(classArtifacts);
+	public ResponseEntity<Resource> exportToJSON(@PathVariable Integer idProject, Authentication auth,
+												 ServletWebRequest request) throws IOException {
+		return export(idProject, Format.JSON, auth, request);
+	}
+
+	@GetMapping(value = "/{idProject}/ndjson", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<Resource> exportToNDJSON(@PathVariable Integer idProject, Authentication auth,
+												   ServletWebRequest request) throws IOException {
+		return export(idProject, Format.NDJSON, auth, request);
+	}
+
+	@GetMapping(value = "/{idProject}/arrow", produces = ExportService.APPLICATION_ARROW_STREAM_VALUE)
+	public ResponseEntity<Resource> exportToArrow(@PathVariable Integer idProject, Authentication auth,
+												  ServletWebRequest request) throws IOException {
+		return export(idProject, Format.ARROW, auth, request);
+	}
+
+	/**
+	 * Serves the gzip generated by the analysis as is to clients that accept it, with byte ranges so broken
+	 * downloads resume, and inflates it on the fly for the others, whole as the inflated length is unknown.
+	 * The ETag changes with the file, which is replaced on every analysis. A project under analysis has no such file, its current artifacts are streamed
+	 * from the database and not cached.
+	 */
+	private ResponseEntity<Resource> export(Integer idProject, Format format, Authentication auth,
+											ServletWebRequest request) throws IOException {
+		Project project = projectService.getProjectByIdAndUser(idProject, auth.getName());
+		Optional<Path> generated = exportService.findGeneratedExport(project, format);
+		if (generated.isEmpty()) {
+			streamUncached(project, format, request.getResponse());
+			return null;
+		}
+		Path export = generated.get();
+		boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+		String eTag = "\"%s-%x-%x%s\"".formatted(format.getExtension(), Files.getLastModifiedTime(export).toMillis(),
+				Files.size(export), gzip ? "-" + GZIP : "");
+		if (request.checkNotModified(eTag)) {
+			return null;
+		}
+
+		if (!gzip) {
+			streamInflated(export, format, eTag, request.getResponse());
+			return null;
+		}
+		return ResponseEntity.ok()
+				.contentType(format.getMediaType())
+				.cacheControl(CacheControl.noCache().cachePrivate())
+				.varyBy(HttpHeaders.ACCEPT_ENCODING)
+				.eTag(eTag)
+				.header(HttpHeaders.CONTENT_ENCODING, GZIP)
+				.body(new FileSystemResource(export));
+	}
+
+	// not a Resource body, for which ranges would be advertised and then refused as its length is unknown
+	private void streamInflated(Path export, Format format, String eTag, HttpServletResponse response) throws IOException {
+		response.setContentType(format.getMediaType().toString());
+		response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+		response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		response.setHeader(HttpHeaders.ETAG, eTag);
+		response.setHeader(HttpHeaders.ACCEPT_RANGES, "none");
+		try (InputStream inflated = new GZIPInputStream(Files.newInputStream(export), GZIP_BUFFER_BYTES)) {
+			inflated.transferTo(response.getOutputStream());
+		}
+		response.flushBuffer();
+	}
+
+	// written on the request thread, an async body would be cut by the async request timeout
+	private void streamUncached(Project project, Format format, HttpServletResponse response) throws IOException {
+		response.setContentType(format.getMediaType().toString());
+		response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+		exportService.write(project.getId(), format, response.getOutputStream());
+		response.flushBuffer();
+	}
+
+	private static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parameters = coding.trim().split(";");
+			if (GZIP.equalsIgnoreCase(parameters[0].trim())) {
+				return parameters.length == 1 || !parameters[1].trim().matches("q=0(\\.0*)?");
+			}
+		}
+		return false;
 	}
 }
@@ -0,0 +1,16 @@
+package pt.iscteiul.analyx.dto;
+
+/**
+ * Progress of a running analysis as pushed to the dashboard. {@code filesTotal} and {@code etaSeconds} are null
+ * while unknown, {@code status} is only set on the last event of the job.
+ */
+public record AnalysisProgressDTO(
+		Integer idProject,
+		String step,
+		Long filesTotal,
+		long filesDone,
+		double filesPerSecond,
+		Long etaSeconds,
+		String status
+) {
+}
@@ -0,0 +1,39 @@
+package pt.iscteiul.analyx.dto;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNullElse;
+
+/**
+ * A page of the classes of the project view: its order, the filters (minimum values) and the keyset of the last
+ * class of the previous page, {@code afterValue} being its value of the sort column.
+ */
+public record ClassPageDTO(
+		ClassSort sort,
+		Boolean desc,
+		Integer minLoc,
+		Integer minCbo,
+		Integer minDit,
+		Integer minComplexity,
+		Integer afterValue,
+		Integer afterId,
+		Integer size
+) {
+	private static final int DEFAULT_SIZE = 50;
+	private static final int MAX_SIZE = 500;
+
+	public ClassSort sortOrDefault() {
+		return requireNonNullElse(sort, ClassSort.ID);
+	}
+
+	public boolean descending() {
+		return Boolean.TRUE.equals(desc);
+	}
+
+	public int sizeOrDefault() {
+		return isNull(size) ? DEFAULT_SIZE : Math.clamp(size, 1, MAX_SIZE);
+	}
+
+	public boolean firstPage() {
+		return isNull(afterId) || (isNull(afterValue) && !ClassSort.ID.equals(sortOrDefault()));
+	}
+}
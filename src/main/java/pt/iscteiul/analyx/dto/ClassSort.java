@@ -0,0 +1,19 @@
+package pt.iscteiul.analyx.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Orders of the classes of the project view, each backed by an index of {@code (id_project, column, id)}.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ClassSort {
+	ID("id"),
+	LOC("classLinesCode"),
+	CBO("cbo"),
+	DIT("dit"),
+	COMPLEXITY("complexity");
+
+	private final String property;
+}
@@ -12,8 +12,11 @@ import lombok.Setter;
 @Table(name = "artifact")
 @Inheritance(strategy = InheritanceType.JOINED)
 public abstract class Artifact {
+	/**
+	 * Assigned from the {@code artifact_sequence} blocks by ArtifactJdbcWriter, there is no generator so JPA cannot
+	 * insert artifacts with keys of its own.
+	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	@Column(name = "id_artifact", nullable = false)
 	private Integer id;
 
@@ -3,6 +3,9 @@ package pt.iscteiul.analyx.entity;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrimaryKeyJoinColumn;
 import jakarta.persistence.Table;
@@ -41,6 +44,35 @@ public class ClassArtifact extends Artifact {
 	@Column(name = "fan_out")
 	private Integer fanOut;
 
+	/**
+	 * The project of the artifact again, so the classes of a project can be paged from the class_artifact indexes.
+	 */
+	@NotNull
+	@Column(name = "id_project", nullable = false)
+	private Integer idProject;
+
+	@NotNull
+	@Column(name = "method_count", nullable = false)
+	private Integer methodCount;
+
+	/**
+	 * The lines of code of the artifact again, so the classes of a project can be sorted by them from a class_artifact index.
+	 */
+	@NotNull
+	@Column(name = "lines_code", nullable = false)
+	private Integer classLinesCode;
+
+	/**
+	 * Sum of the cyclomatic complexity of the methods.
+	 */
+	@NotNull
+	@Column(name = "complexity", nullable = false)
+	private Integer complexity;
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "id_source_file")
+	private SourceFile sourceFile;
+
 	@OneToMany(mappedBy = "classArtifact", cascade = CascadeType.PERSIST)
 	private List<MethodArtifact> methodsArtifact;
 
@@ -0,0 +1,8 @@
+package pt.iscteiul.analyx.entity;
+
+public enum PartitionStatus {
+	PENDING,
+	RUNNING,
+	COMPLETED,
+	FAILED
+}
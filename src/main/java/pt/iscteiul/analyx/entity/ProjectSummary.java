@@ -0,0 +1,64 @@
+package pt.iscteiul.analyx.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Totals of the last analysis of a project, lines of code being those of its methods.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "project_summary")
+public class ProjectSummary {
+	@Id
+	@Column(name = "id_project", nullable = false)
+	private Integer idProject;
+
+	@NotNull
+	@Column(name = "class_count", nullable = false)
+	private Integer classCount;
+
+	@NotNull
+	@Column(name = "method_count", nullable = false)
+	private Integer methodCount;
+
+	@NotNull
+	@Column(name = "lines_code", nullable = false)
+	private Long linesCode;
+
+	@NotNull
+	@Column(name = "average_complexity", nullable = false)
+	private Double averageComplexity;
+
+	@NotNull
+	@Column(name = "max_complexity", nullable = false)
+	private Integer maxComplexity;
+
+	@NotNull
+	@Column(name = "methods_complexity_1_10", nullable = false)
+	private Integer methodsComplexity1To10;
+
+	@NotNull
+	@Column(name = "methods_complexity_11_20", nullable = false)
+	private Integer methodsComplexity11To20;
+
+	@NotNull
+	@Column(name = "methods_complexity_21_50", nullable = false)
+	private Integer methodsComplexity21To50;
+
+	@NotNull
+	@Column(name = "methods_complexity_over_50", nullable = false)
+	private Integer methodsComplexityOver50;
+
+	@NotNull
+	@Column(name = "computed_date", nullable = false)
+	private LocalDateTime computedDate;
+}
@@ -0,0 +1,6 @@
+package pt.iscteiul.analyx.entity;
+
+public enum QueueStatus {
+	QUEUED,
+	RUNNING
+}
@@ -0,0 +1,85 @@
+package pt.iscteiul.analyx.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "queued_job")
+public class QueuedJob {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id_queued_job", nullable = false)
+	private Integer id;
+
+	@NotNull
+	@Column(name = "id_project", nullable = false)
+	private Integer idProject;
+
+	@NotNull
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
+	@JoinColumn(name = "id_user", nullable = false)
+	private AppUser user;
+
+	@Size(max = 100)
+	@NotNull
+	@Column(name = "job_name", nullable = false, length = 100)
+	private String jobName;
+
+	/**
+	 * Lower runs first.
+	 */
+	@NotNull
+	@Column(name = "priority", nullable = false)
+	private Integer priority;
+
+	@NotNull
+	@Enumerated(EnumType.ORDINAL)
+	@Column(name = "status", nullable = false)
+	private QueueStatus status;
+
+	@NotNull
+	@Column(name = "queued_date", nullable = false)
+	private LocalDateTime queuedDate;
+
+	@Column(name = "started_date")
+	private LocalDateTime startedDate;
+
+	/**
+	 * Node running the job.
+	 */
+	@Size(max = 100)
+	@Column(name = "worker", length = 100)
+	private String worker;
+
+	/**
+	 * New on every claim, a node that lost the job to another one no longer renews or removes it.
+	 */
+	@Size(max = 36)
+	@Column(name = "lease_token", length = 36, unique = true)
+	private String leaseToken;
+
+	/**
+	 * Renewed by the worker while the job runs, afterwards another node may take the job over. Set from the
+	 * database clock, the nodes' clocks never enter the lease.
+	 */
+	@Column(name = "lease_until")
+	private LocalDateTime leaseUntil;
+
+}
@@ -0,0 +1,8 @@
+package pt.iscteiul.analyx.entity;
+
+public enum SkipReason {
+	TOO_LARGE,
+	TIMEOUT,
+	TOO_DEEP,
+	FAILED
+}
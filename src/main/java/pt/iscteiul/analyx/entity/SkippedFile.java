@@ -0,0 +1,56 @@
+package pt.iscteiul.analyx.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A source file left out of the analysis, the rest of the project was analyzed without it.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "skipped_file")
+public class SkippedFile {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id_skipped_file", nullable = false)
+	private Integer id;
+
+	@NotNull
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
+	@JoinColumn(name = "id_project", nullable = false)
+	private Project project;
+
+	@NotNull
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
+	@JoinColumn(name = "id_source_file", nullable = false)
+	private SourceFile sourceFile;
+
+	@NotNull
+	@Enumerated(EnumType.ORDINAL)
+	@Column(name = "reason", nullable = false)
+	private SkipReason reason;
+
+	@Size(max = 500)
+	@Column(name = "detail", length = 500)
+	private String detail;
+
+	@NotNull
+	@Column(name = "skipped_date", nullable = false)
+	private LocalDateTime skippedDate;
+}
@@ -0,0 +1,45 @@
+package pt.iscteiul.analyx.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "source_file")
+public class SourceFile {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id_source_file", nullable = false)
+	private Integer id;
+
+	/**
+	 * Path relative to the project folder, always with {@code /} separators.
+	 */
+	@Size(max = 500)
+	@NotNull
+	@Column(name = "path", nullable = false, length = 500)
+	private String path;
+
+	@Size(max = 64)
+	@NotNull
+	@Column(name = "sha256", nullable = false, length = 64)
+	private String sha256;
+
+	@NotNull
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
+	@JoinColumn(name = "id_project", nullable = false)
+	private Project project;
+
+}
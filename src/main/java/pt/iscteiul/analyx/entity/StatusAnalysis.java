@@ -5,5 +5,6 @@ public enum StatusAnalysis {
 	PROCESSING_FILES,
 	DELETING,
 	FINISHED,
-	ERROR
+	ERROR,
+	QUEUED
 }
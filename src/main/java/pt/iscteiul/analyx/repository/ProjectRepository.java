@@ -1,5 +1,8 @@
 package pt.iscteiul.analyx.repository;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import pt.iscteiul.analyx.entity.Project;
 
@@ -11,4 +14,11 @@ public interface ProjectRepository extends CrudRepository<Project, Integer> {
 	List<Project> findByUser_Name(String userName);
 
 	Optional<Project> findByIdAndUser_Name(Integer id, String userName);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select p from Project p where p.id = :id")
+	Optional<Project> findForUpdateById(Integer id);
+
+	@Query("select p.user.name from Project p where p.id = :id")
+	Optional<String> findUserNameById(Integer id);
 }
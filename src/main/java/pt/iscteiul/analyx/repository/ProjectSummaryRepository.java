@@ -0,0 +1,7 @@
+package pt.iscteiul.analyx.repository;
+
+import org.springframework.data.repository.CrudRepository;
+import pt.iscteiul.analyx.entity.ProjectSummary;
+
+public interface ProjectSummaryRepository extends CrudRepository<ProjectSummary, Integer> {
+}
@@ -0,0 +1,101 @@
+package pt.iscteiul.analyx.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import pt.iscteiul.analyx.entity.QueueStatus;
+import pt.iscteiul.analyx.entity.QueuedJob;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface QueuedJobRepository extends JpaRepository<QueuedJob, Integer> {
+
+	@Query("""
+			select
+				q
+			from
+				QueuedJob q
+				inner join fetch q.user
+			order by
+				q.priority,
+				q.queuedDate,
+				q.id
+			"""
+	)
+	List<QueuedJob> findAllInRunOrder();
+
+	/**
+	 * The job if it has the status (ordinal) and no other node is claiming it, skip locked leaves it to that node.
+	 */
+	@Query(value = """
+			select
+				*
+			from
+				queued_job
+			where
+				id_queued_job = :id
+				and status = :status
+			for update skip locked
+			""", nativeQuery = true
+	)
+	Optional<QueuedJob> findForClaim(Integer id, int status);
+
+	boolean existsByIdProject(Integer idProject);
+
+	boolean existsByIdProjectAndStatus(Integer idProject, QueueStatus status);
+
+	long countByStatus(QueueStatus status);
+
+	@Modifying
+	void deleteByIdProjectAndStatus(Integer idProject, QueueStatus status);
+
+	/**
+	 * Extends the leases of the tokens by {@code leaseMs} from the database clock, if their jobs still have the
+	 * status (ordinal).
+	 */
+	@Modifying(flushAutomatically = true)
+	@Query(value = """
+			update
+				queued_job
+			set
+				lease_until = timestampadd(microsecond, :leaseMs * 1000, now())
+			where
+				lease_token in (:leaseTokens)
+				and status = :status
+			""", nativeQuery = true
+	)
+	int renewLeases(Collection<String> leaseTokens, long leaseMs, int status);
+
+	@Query("""
+			select
+				q.leaseToken
+			from
+				QueuedJob q
+			where
+				q.leaseToken in :leaseTokens
+				and q.status = pt.iscteiul.analyx.entity.QueueStatus.RUNNING
+			"""
+	)
+	List<String> findHeld(Collection<String> leaseTokens);
+
+	/**
+	 * Jobs with the status (ordinal) whose lease expired by the database clock, or that {@code worker} held.
+	 */
+	@Query(value = """
+			select
+				*
+			from
+				queued_job
+			where
+				status = :status
+				and (lease_until is null or lease_until < now() or worker = :worker)
+			for update skip locked
+			""", nativeQuery = true
+	)
+	List<QueuedJob> findAbandoned(int status, String worker);
+
+	@Modifying
+	void deleteByIdAndLeaseToken(Integer id, String leaseToken);
+}
@@ -0,0 +1,7 @@
+package pt.iscteiul.analyx.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import pt.iscteiul.analyx.entity.SkippedFile;
+
+public interface SkippedFileRepository extends JpaRepository<SkippedFile, Integer> {
+}
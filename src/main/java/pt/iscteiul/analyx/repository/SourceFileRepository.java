@@ -0,0 +1,16 @@
+package pt.iscteiul.analyx.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import pt.iscteiul.analyx.entity.Project;
+import pt.iscteiul.analyx.entity.SourceFile;
+
+import java.util.List;
+import java.util.Set;
+
+public interface SourceFileRepository extends JpaRepository<SourceFile, Integer> {
+	List<SourceFile> findByProject(Project project);
+
+	@Query("select s.path from SourceFile s where s.project = :project")
+	Set<String> findPathsByProject(Project project);
+}
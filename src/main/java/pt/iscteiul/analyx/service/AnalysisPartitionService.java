@@ -0,0 +1,145 @@
+package pt.iscteiul.analyx.service;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pt.iscteiul.analyx.batch.BatchConstants;
+import pt.iscteiul.analyx.entity.PartitionStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The {@code analysis_partition} table, through which the partitions of an analysis are handed to the worker
+ * nodes. A worker claims the oldest pending partition with {@code for update skip locked}, so concurrent
+ * claims of other nodes skip the locked row instead of waiting for it, and keeps a heartbeat while running it.
+ * Every date is set and compared by the database clock, the clocks of the workers and the manager may differ.
+ */
+@Service
+public class AnalysisPartitionService {
+	private static final String INSERT = """
+			insert into analysis_partition (id_job_execution, id_step_execution, step_name, status, created_date)
+			values (?, ?, ?, ?, now())
+			""";
+	private static final String FIND_PENDING = """
+			select id_analysis_partition, id_job_execution, id_step_execution, step_name from analysis_partition
+			where status = ?
+			order by id_analysis_partition
+			limit 1
+			for update skip locked
+			""";
+	private static final String CLAIM = """
+			update analysis_partition set status = ?, worker = ?, claimed_date = now(), heartbeat_date = now()
+			where id_analysis_partition = ?
+			""";
+	// a partition expired by the manager, or deleted with its job execution, is no longer this worker's
+	private static final String HEARTBEAT = """
+			update analysis_partition set heartbeat_date = now()
+			where id_analysis_partition = ? and worker = ? and status = ?
+			""";
+	// a partition already expired by the manager stays failed
+	private static final String FINISH = """
+			update analysis_partition set status = ?
+			where id_analysis_partition = ? and status = ?
+			""";
+	private static final String FIND_EXPIRED = """
+			select id_analysis_partition, id_step_execution from analysis_partition
+			where id_job_execution = ? and status = ? and heartbeat_date < timestampadd(microsecond, ?, now())
+			for update
+			""";
+	private static final String COUNT_UNFINISHED = """
+			select count(*) from analysis_partition
+			where id_job_execution = ? and status in (?, ?)
+			""";
+	private static final String DELETE = "delete from analysis_partition where id_job_execution = ?";
+	// partitions left by the interrupted executions of the project's jobs
+	private static final String DELETE_BY_PROJECT = """
+			delete from analysis_partition
+			where id_job_execution in (
+				select JOB_EXECUTION_ID from BATCH_JOB_EXECUTION_PARAMS
+				where PARAMETER_NAME = ? and PARAMETER_TYPE = ? and PARAMETER_VALUE = ?
+			)
+			""";
+
+	public record ClaimedPartition(long id, long idJobExecution, long idStepExecution, String stepName) {
+	}
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	public void create(long idJobExecution, Collection<StepExecution> stepExecutions) {
+		jdbcTemplate.batchUpdate(INSERT, stepExecutions.stream()
+				.map(stepExecution -> new Object[]{idJobExecution, stepExecution.getId(), stepExecution.getStepName(),
+						PartitionStatus.PENDING.ordinal()})
+				.toList());
+	}
+
+	@Transactional
+	public Optional<ClaimedPartition> claimNext(String worker) {
+		List<ClaimedPartition> pending = jdbcTemplate.query(FIND_PENDING,
+				(rs, rowNum) -> new ClaimedPartition(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getString(4)),
+				PartitionStatus.PENDING.ordinal());
+		if (pending.isEmpty()) {
+			return Optional.empty();
+		}
+		ClaimedPartition partition = pending.getFirst();
+		jdbcTemplate.update(CLAIM, PartitionStatus.RUNNING.ordinal(), worker, partition.id());
+		return Optional.of(partition);
+	}
+
+	/**
+	 * Renews the lease of the partitions {@code worker} is running.
+	 *
+	 * @return ids of the partitions the worker no longer holds
+	 */
+	public List<Long> heartbeat(String worker, Collection<Long> ids) {
+		List<Long> partitions = List.copyOf(ids);
+		int[] renewed = jdbcTemplate.batchUpdate(HEARTBEAT, partitions.stream()
+				.map(id -> new Object[]{id, worker, PartitionStatus.RUNNING.ordinal()})
+				.toList());
+		List<Long> lost = new ArrayList<>();
+		for (int i = 0; i < renewed.length; i++) {
+			if (renewed[i] == 0) {
+				lost.add(partitions.get(i));
+			}
+		}
+		return lost;
+	}
+
+	public void finish(long id, PartitionStatus status) {
+		jdbcTemplate.update(FINISH, status.ordinal(), id, PartitionStatus.RUNNING.ordinal());
+	}
+
+	/**
+	 * Fails the running partitions of the job execution whose worker has not been heard of within {@code lease}.
+	 *
+	 * @return ids of their step executions
+	 */
+	@Transactional
+	public List<Long> expire(long idJobExecution, Duration lease) {
+		List<long[]> expired = jdbcTemplate.query(FIND_EXPIRED,
+				(rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)},
+				idJobExecution, PartitionStatus.RUNNING.ordinal(), -lease.toMillis() * 1000);
+		expired.forEach(partition -> finish(partition[0], PartitionStatus.FAILED));
+		return expired.stream().map(partition -> partition[1]).toList();
+	}
+
+	public long countUnfinished(long idJobExecution) {
+		Long count = jdbcTemplate.queryForObject(COUNT_UNFINISHED, Long.class, idJobExecution,
+				PartitionStatus.PENDING.ordinal(), PartitionStatus.RUNNING.ordinal());
+		return count == null ? 0 : count;
+	}
+
+	public void deleteByJobExecution(long idJobExecution) {
+		jdbcTemplate.update(DELETE, idJobExecution);
+	}
+
+	public void deleteByProject(Integer idProject) {
+		jdbcTemplate.update(DELETE_BY_PROJECT, BatchConstants.PARAM_ID_PROJECT, Long.class.getName(), idProject.toString());
+	}
+}
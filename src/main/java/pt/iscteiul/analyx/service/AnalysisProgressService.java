@@ -0,0 +1,194 @@
+package pt.iscteiul.analyx.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pt.iscteiul.analyx.dto.AnalysisProgressDTO;
+import pt.iscteiul.analyx.repository.ProjectRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Keeps the progress of the running analyses in memory and pushes it to the dashboards of their owners over
+ * Server-Sent Events, so following a job costs no query. The batch threads only update the progress; changed
+ * progress is coalesced and pushed by a thread of its own, so a slow dashboard never holds up a chunk.
+ */
+@Slf4j
+@Service
+public class AnalysisProgressService {
+	private static final String PROGRESS_EVENT = "progress";
+
+	@Autowired
+	private ProjectRepository projectRepository;
+
+	@Value("${analyx.progress.sse-timeout-ms}")
+	private long sseTimeoutMs;
+
+	@Value("${analyx.progress.push-interval-ms}")
+	private long pushIntervalMs;
+
+	private final Map<Long, Progress> progressByProject = new ConcurrentHashMap<>();
+
+	// progress changed since the last push, finished jobs included
+	private final Map<Long, Progress> changed = new ConcurrentHashMap<>();
+
+	private final Map<String, List<SseEmitter>> emittersByUser = new ConcurrentHashMap<>();
+
+	private ScheduledExecutorService pusher;
+
+	@PostConstruct
+	public void startPusher() {
+		pusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("progress-push").daemon().factory());
+		pusher.scheduleWithFixedDelay(this::push, pushIntervalMs, pushIntervalMs, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stopPusher() {
+		pusher.shutdownNow();
+	}
+
+	public SseEmitter subscribe(String username) {
+		SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+		List<SseEmitter> emitters = emittersByUser.computeIfAbsent(username, u -> new CopyOnWriteArrayList<>());
+		emitters.add(emitter);
+		emitter.onCompletion(() -> emitters.remove(emitter));
+		emitter.onTimeout(() -> emitters.remove(emitter));
+		emitter.onError(e -> emitters.remove(emitter));
+		progressByProject.values().stream()
+				.filter(progress -> progress.username.equals(username))
+				.map(AnalysisProgressService::snapshot)
+				.forEach(snapshot -> send(emitter, emitters, snapshot));
+		return emitter;
+	}
+
+	public void jobStarted(Long idProject) {
+		projectRepository.findUserNameById(idProject.intValue())
+				.ifPresent(username -> progressByProject.put(idProject, new Progress(idProject, username)));
+	}
+
+	public void stepStarted(Long idProject, String step) {
+		Progress progress = progressByProject.get(idProject);
+		if (isNull(progress)) {
+			return;
+		}
+		synchronized (progress) {
+			progress.step = step;
+		}
+		publish(progress);
+	}
+
+	public void filesFound(Long idProject, long filesTotal) {
+		Progress progress = progressByProject.get(idProject);
+		if (isNull(progress)) {
+			return;
+		}
+		synchronized (progress) {
+			progress.filesTotal = filesTotal;
+			progress.readStart = Instant.now();
+		}
+		publish(progress);
+	}
+
+	/**
+	 * @param readCount files read so far by the step execution, partitions report each on its own
+	 */
+	public void filesRead(Long idProject, Long idStepExecution, long readCount) {
+		Progress progress = progressByProject.get(idProject);
+		if (isNull(progress)) {
+			return;
+		}
+		synchronized (progress) {
+			progress.readByStep.put(idStepExecution, readCount);
+			if (isNull(progress.readStart)) {
+				progress.readStart = Instant.now();
+			}
+		}
+		publish(progress);
+	}
+
+	public void jobFinished(Long idProject, String status) {
+		Progress progress = progressByProject.remove(idProject);
+		if (isNull(progress)) {
+			return;
+		}
+		synchronized (progress) {
+			progress.status = status;
+		}
+		publish(progress);
+	}
+
+	private void publish(Progress progress) {
+		changed.put(progress.idProject, progress);
+	}
+
+	private void push() {
+		// an exception would cancel the next pushes
+		try {
+			for (Long idProject : changed.keySet()) {
+				Progress progress = changed.remove(idProject);
+				AnalysisProgressDTO snapshot = snapshot(progress);
+				List<SseEmitter> emitters = emittersByUser.getOrDefault(progress.username, List.of());
+				emitters.forEach(emitter -> send(emitter, emitters, snapshot));
+			}
+		} catch (RuntimeException e) {
+			log.warn("Cannot push the analysis progress", e);
+		}
+	}
+
+	// the batch threads update the progress under its lock
+	private static AnalysisProgressDTO snapshot(Progress progress) {
+		synchronized (progress) {
+			return progress.snapshot();
+		}
+	}
+
+	private static void send(SseEmitter emitter, List<SseEmitter> emitters, AnalysisProgressDTO snapshot) {
+		try {
+			emitter.send(SseEmitter.event().name(PROGRESS_EVENT).data(snapshot));
+		} catch (IOException | IllegalStateException e) {
+			log.debug("Dropping progress subscriber: {}", e.getMessage());
+			emitters.remove(emitter);
+		}
+	}
+
+	private static class Progress {
+		private final Long idProject;
+		private final String username;
+		private final Map<Long, Long> readByStep = new HashMap<>();
+		private String step;
+		private Long filesTotal;
+		private Instant readStart;
+		private String status;
+
+		private Progress(Long idProject, String username) {
+			this.idProject = idProject;
+			this.username = username;
+		}
+
+		private AnalysisProgressDTO snapshot() {
+			long filesDone = readByStep.values().stream().mapToLong(Long::longValue).sum();
+			double seconds = isNull(readStart) ? 0 : Duration.between(readStart, Instant.now()).toMillis() / 1000.0;
+			double filesPerSecond = seconds > 0 ? filesDone / seconds : 0;
+			Long etaSeconds = isNull(filesTotal) || filesPerSecond == 0
+					? null
+					: Math.round(Math.max(0, filesTotal - filesDone) / filesPerSecond);
+			return new AnalysisProgressDTO(idProject.intValue(), step, filesTotal, filesDone, filesPerSecond, etaSeconds, status);
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package pt.iscteiul.analyx.service;
+
+import lombok.SneakyThrows;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pt.iscteiul.analyx.entity.Project;
+import pt.iscteiul.analyx.entity.QueueStatus;
+import pt.iscteiul.analyx.entity.QueuedJob;
+import pt.iscteiul.analyx.entity.StatusAnalysis;
+import pt.iscteiul.analyx.exception.BusinessException;
+import pt.iscteiul.analyx.repository.ProjectRepository;
+import pt.iscteiul.analyx.repository.QueuedJobRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+import static pt.iscteiul.analyx.batch.BatchConstants.JOB_DELETE_PROJECT;
+
+@Service
+public class AnalysisQueueService {
+	private static final int DELETE_PRIORITY = 0;
+	private static final int ANALYSIS_PRIORITY = 1;
+
+	@Autowired
+	private QueuedJobRepository queuedJobRepository;
+
+	@Autowired
+	private ProjectRepository projectRepository;
+
+	@Autowired
+	private WorkspaceService workspaceService;
+
+	@Transactional
+	public QueuedJob enqueue(Integer idProject, String jobName) {
+		// the project lock serializes the enqueues and claims of a project across the nodes
+		Project project = projectRepository.findForUpdateById(idProject)
+				.orElseThrow(() -> new BusinessException("Project %d not found".formatted(idProject)));
+		boolean deletion = JOB_DELETE_PROJECT.equals(jobName);
+		if (deletion) {
+			// nothing left to analyze once the project is gone
+			queuedJobRepository.deleteByIdProjectAndStatus(idProject, QueueStatus.QUEUED);
+		} else {
+			if (queuedJobRepository.existsByIdProject(idProject)) {
+				throw new BusinessException("Project %d is already waiting for analysis".formatted(idProject));
+			}
+			project.setStatusAnalysis(StatusAnalysis.QUEUED);
+			projectRepository.save(project);
+		}
+
+		QueuedJob queuedJob = new QueuedJob();
+		queuedJob.setIdProject(idProject);
+		queuedJob.setUser(project.getUser());
+		queuedJob.setJobName(jobName);
+		queuedJob.setPriority(deletion ? DELETE_PRIORITY : analysisPriority(project));
+		queuedJob.setStatus(QueueStatus.QUEUED);
+		queuedJob.setQueuedDate(LocalDateTime.now());
+		return queuedJobRepository.save(queuedJob);
+	}
+
+	public List<QueuedJob> findAllInRunOrder() {
+		return queuedJobRepository.findAllInRunOrder();
+	}
+
+	public long countRunning() {
+		return queuedJobRepository.countByStatus(QueueStatus.RUNNING);
+	}
+
+	public long countQueued() {
+		return queuedJobRepository.countByStatus(QueueStatus.QUEUED);
+	}
+
+	/**
+	 * Claims the queued job for {@code worker} under a new lease token for {@code leaseMs}, unless another node
+	 * claims it first or a job of the same project is running.
+	 */
+	@Transactional
+	public Optional<QueuedJob> claim(QueuedJob candidate, String worker, long leaseMs) {
+		projectRepository.findForUpdateById(candidate.getIdProject());
+		if (queuedJobRepository.existsByIdProjectAndStatus(candidate.getIdProject(), QueueStatus.RUNNING)) {
+			return Optional.empty();
+		}
+		return queuedJobRepository.findForClaim(candidate.getId(), QueueStatus.QUEUED.ordinal())
+				.map(queuedJob -> {
+					queuedJob.setStatus(QueueStatus.RUNNING);
+					queuedJob.setStartedDate(LocalDateTime.now());
+					queuedJob.setWorker(worker);
+					queuedJob.setLeaseToken(UUID.randomUUID().toString());
+					QueuedJob claimed = queuedJobRepository.save(queuedJob);
+					queuedJobRepository.renewLeases(List.of(claimed.getLeaseToken()), leaseMs, QueueStatus.RUNNING.ordinal());
+					return claimed;
+				});
+	}
+
+	/**
+	 * @return the lease tokens still held, the jobs of the others were taken over by another node
+	 */
+	@Transactional
+	public Set<String> renewLeases(Collection<String> leaseTokens, long leaseMs) {
+		if (leaseTokens.isEmpty()) {
+			return Set.of();
+		}
+		queuedJobRepository.renewLeases(leaseTokens, leaseMs, QueueStatus.RUNNING.ordinal());
+		return Set.copyOf(queuedJobRepository.findHeld(leaseTokens));
+	}
+
+	@Transactional
+	public void remove(QueuedJob queuedJob) {
+		// a job taken over by another node is that node's to remove
+		queuedJobRepository.deleteByIdAndLeaseToken(queuedJob.getId(), queuedJob.getLeaseToken());
+	}
+
+	/**
+	 * Drops the jobs of the project still waiting, a running job removes itself when it ends.
+	 */
+	@Transactional
+	public void removeQueued(Integer idProject) {
+		queuedJobRepository.deleteByIdProjectAndStatus(idProject, QueueStatus.QUEUED);
+	}
+
+	/**
+	 * Running jobs whose lease expired, or that {@code worker} held before it restarted, get back in line, but
+	 * those whose execution {@code completed} before the node running them went silent are removed instead.
+	 *
+	 * @return the number of jobs queued again
+	 */
+	@Transactional
+	public int requeueAbandoned(String worker, Predicate<QueuedJob> completed) {
+		int requeued = 0;
+		for (QueuedJob queuedJob : queuedJobRepository.findAbandoned(QueueStatus.RUNNING.ordinal(), worker)) {
+			if (completed.test(queuedJob)) {
+				queuedJobRepository.delete(queuedJob);
+				continue;
+			}
+			queuedJob.setStatus(QueueStatus.QUEUED);
+			queuedJob.setStartedDate(null);
+			queuedJob.setWorker(null);
+			queuedJob.setLeaseToken(null);
+			queuedJob.setLeaseUntil(null);
+			requeued++;
+		}
+		return requeued;
+	}
+
+	/**
+	 * One priority level per doubling of the uploaded zip, so small projects overtake large ones.
+	 */
+	@SneakyThrows
+	private int analysisPriority(Project project) {
+		Path projectZipFile = workspaceService.getProjectZipFile(project);
+		long sizeKb = Files.exists(projectZipFile) ? Files.size(projectZipFile) / 1024 : 0;
+		return ANALYSIS_PRIORITY + 63 - Long.numberOfLeadingZeros(sizeKb + 1);
+	}
+}
@@ -0,0 +1,342 @@
+package pt.iscteiul.analyx.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobExecutionNotRunningException;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.launch.JobOperator;
+import org.springframework.batch.core.launch.NoSuchJobExecutionException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pt.iscteiul.analyx.batch.BatchConstants;
+import pt.iscteiul.analyx.batch.LocalJobExecutions;
+import pt.iscteiul.analyx.config.ClusterNode;
+import pt.iscteiul.analyx.entity.QueueStatus;
+import pt.iscteiul.analyx.entity.QueuedJob;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static pt.iscteiul.analyx.batch.BatchConstants.JOB_DELETE_PROJECT;
+import static pt.iscteiul.analyx.batch.BatchConstants.JOB_PROCESS_PROJECT_RESTART;
+
+/**
+ * Starts the queued jobs, never more than {@code analyx.scheduler.max-running-jobs} at a time on this node. The
+ * queue priority comes first: deletions, then analyses from the smallest project up. Among the next jobs of
+ * each user with the same priority, the user with the fewest running jobs goes first, ties going to the user
+ * served longest ago, so one user queueing many projects of a size cannot hold every slot.
+ * <p>
+ * Every node of the cluster polls the same queue. A node holds its running jobs under a lease it renews, timed
+ * by the database clock; the job of a node that stopped renewing is queued again and restarted by the next node
+ * from its last checkpoint, unless its execution had completed. Each claim gets a new lease token, so the node
+ * that lost the job can neither renew nor remove it, and stops the job as soon as a renewal tells it so, or once
+ * its lease may have run out without a renewal getting through.
+ */
+@Slf4j
+@Service
+public class AnalysisScheduler {
+	@Autowired
+	private AnalysisQueueService analysisQueueService;
+
+	@Autowired
+	private ProjectService projectService;
+
+	@Autowired
+	private JobLauncher jobLauncher;
+
+	@Autowired
+	private Map<String, Job> jobs;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private JobExplorer jobExplorer;
+
+	@Autowired
+	private JobRepository jobRepository;
+
+	@Autowired
+	private ClusterNode clusterNode;
+
+	@Autowired
+	private JobOperator jobOperator;
+
+	@Autowired
+	private LocalJobExecutions localJobExecutions;
+
+	@Autowired
+	private AnalysisPartitionService analysisPartitionService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${analyx.scheduler.max-running-jobs}")
+	private int maxRunningJobs;
+
+	@Value("${spring.threads.virtual.enabled}")
+	private boolean virtualThreads;
+
+	@Value("${analyx.cluster.job-lease-ms}")
+	private long jobLeaseMs;
+
+	@Value("${analyx.cluster.heartbeat-interval-ms}")
+	private long heartbeatIntervalMs;
+
+	private final Map<Integer, Instant> lastServedByUser = new HashMap<>();
+
+	// leaseExpiresAt in System.nanoTime, taken before the claim or renewal that set the lease
+	private record RunningJob(QueuedJob queuedJob, Future<?> task, AtomicLong leaseExpiresAt) {
+	}
+
+	// by queued job id, removed by whichever of the job end and the lease loss comes first
+	private final Map<Integer, RunningJob> running = new ConcurrentHashMap<>();
+
+	private ExecutorService launcher;
+
+	private final Lock dispatching = new ReentrantLock();
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		// the queue already caps the running jobs, so with virtual threads every launch can get its own
+		launcher = virtualThreads
+				? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("analysis-launcher-", 0).factory())
+				: Executors.newFixedThreadPool(maxRunningJobs, Thread.ofPlatform().name("analysis-launcher-", 0).factory());
+		Gauge.builder("analyx.queue.jobs", analysisQueueService, AnalysisQueueService::countQueued)
+				.description("Jobs of the analysis queue by status")
+				.tag("status", "queued")
+				.register(meterRegistry);
+		Gauge.builder("analyx.queue.jobs", analysisQueueService, AnalysisQueueService::countRunning)
+				.description("Jobs of the analysis queue by status")
+				.tag("status", "running")
+				.register(meterRegistry);
+		requeueAbandoned(clusterNode.isStable() ? clusterNode.getId() : null);
+		dispatch();
+	}
+
+	@Scheduled(fixedDelayString = "${analyx.scheduler.poll-interval-ms}")
+	public void dispatch() {
+		if (launcher == null) {
+			return;
+		}
+		dispatching.lock();
+		try {
+			requeueAbandoned(null);
+			while (running.size() < maxRunningJobs) {
+				long leaseExpiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(jobLeaseMs);
+				Optional<QueuedJob> next = claimNextJob();
+				if (next.isEmpty()) {
+					return;
+				}
+				QueuedJob queuedJob = next.get();
+				FutureTask<Void> task = new FutureTask<>(() -> run(queuedJob), null);
+				running.put(queuedJob.getId(), new RunningJob(queuedJob, task, new AtomicLong(leaseExpiresAt)));
+				lastServedByUser.put(queuedJob.getUser().getId(), Instant.now());
+				launcher.execute(task);
+			}
+		} finally {
+			dispatching.unlock();
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${analyx.cluster.heartbeat-interval-ms}")
+	public void renewLeases() {
+		List<RunningJob> renewing = List.copyOf(running.values());
+		long leaseExpiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(jobLeaseMs);
+		Set<String> held;
+		try {
+			held = analysisQueueService.renewLeases(renewing.stream()
+					.map(runningJob -> runningJob.queuedJob().getLeaseToken())
+					.toList(), jobLeaseMs);
+		} catch (RuntimeException e) {
+			log.warn("Leases not renewed: {}", e.getMessage());
+			// another node may take over any job whose lease runs out before the next renewal
+			long nextRenewal = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMs);
+			renewing.stream()
+					.filter(runningJob -> nextRenewal - runningJob.leaseExpiresAt().get() >= 0)
+					.forEach(runningJob -> stopLost(runningJob.queuedJob().getId()));
+			return;
+		}
+		renewing.forEach(runningJob -> {
+			if (held.contains(runningJob.queuedJob().getLeaseToken())) {
+				runningJob.leaseExpiresAt().set(leaseExpiresAt);
+			} else {
+				stopLost(runningJob.queuedJob().getId());
+			}
+		});
+	}
+
+	/**
+	 * Another node took the job over after a pause of this one longer than the lease, or may have, and runs it
+	 * again: this node stops its own execution and interrupts the launcher, the job is no longer its to finish.
+	 */
+	private void stopLost(Integer idQueuedJob) {
+		RunningJob runningJob = running.remove(idQueuedJob);
+		if (runningJob == null) {
+			return;
+		}
+		QueuedJob queuedJob = runningJob.queuedJob();
+		log.warn("{} of project {} lost its lease, stopping it", queuedJob.getJobName(), queuedJob.getIdProject());
+		localJobExecutions.findByProject(queuedJob.getIdProject().longValue()).ifPresent(idJobExecution -> {
+			try {
+				jobOperator.stop(idJobExecution);
+			} catch (NoSuchJobExecutionException | JobExecutionNotRunningException e) {
+				// already failed by the node that took over
+				log.debug("Execution {} not stopped: {}", idJobExecution, e.getMessage());
+			}
+		});
+		runningJob.task().cancel(true);
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (launcher != null) {
+			launcher.shutdownNow();
+		}
+	}
+
+	private Optional<QueuedJob> claimNextJob() {
+		List<QueuedJob> queue = analysisQueueService.findAllInRunOrder();
+		Map<Integer, Long> runningByUser = queue.stream()
+				.filter(q -> QueueStatus.RUNNING.equals(q.getStatus()))
+				.collect(Collectors.groupingBy(q -> q.getUser().getId(), Collectors.counting()));
+		// the queue comes in run order, so the first job seen of each user is the one that user would run next
+		Map<Integer, QueuedJob> nextByUser = queue.stream()
+				.filter(q -> QueueStatus.QUEUED.equals(q.getStatus()))
+				.collect(Collectors.toMap(q -> q.getUser().getId(), Function.identity(), (first, other) -> first, LinkedHashMap::new));
+		// another node may claim a candidate first, or be running another job of its project
+		return nextByUser.values().stream()
+				.sorted(Comparator
+						.comparing(QueuedJob::getPriority)
+						.thenComparingLong(q -> runningByUser.getOrDefault(q.getUser().getId(), 0L))
+						.thenComparing(q -> lastServedByUser.getOrDefault(q.getUser().getId(), Instant.MIN)))
+				.map(q -> analysisQueueService.claim(q, clusterNode.getId(), jobLeaseMs))
+				.flatMap(Optional::stream)
+				.findFirst();
+	}
+
+	private void run(QueuedJob queuedJob) {
+		Integer idProject = queuedJob.getIdProject();
+		try {
+			JobParameters jobParameters = abandonInterruptedExecution(queuedJob)
+					.map(JobExecution::getJobParameters)
+					.orElseGet(() -> jobParameters(queuedJob));
+			jobLauncher.run(jobs.get(queuedJob.getJobName()), jobParameters);
+		} catch (JobInstanceAlreadyCompleteException e) {
+			// completed on the node that lost the job, after it was queued again
+			log.info("{} of project {} already completed", queuedJob.getJobName(), idProject);
+		} catch (Exception e) {
+			log.error("{} of project {} could not run: {}", queuedJob.getJobName(), idProject, e.getMessage(), e);
+			// a job taken over by another node is that node's to fail
+			if (!JOB_DELETE_PROJECT.equals(queuedJob.getJobName()) && running.containsKey(queuedJob.getId())) {
+				projectService.markProjectAsFailed(idProject.longValue());
+			}
+		} finally {
+			// a job that lost its lease stays in the queue, for the node taking it over to run again
+			if (running.remove(queuedJob.getId()) != null) {
+				analysisQueueService.remove(queuedJob);
+			}
+			dispatch();
+		}
+	}
+
+	/**
+	 * An execution of the job still started in the repository was left by a node that died, as the queue runs
+	 * one job per project. It is marked failed, so launching it again with its parameters restarts it from its
+	 * last checkpoint, and its partitions are withdrawn in the same transaction, so no worker keeps running them.
+	 */
+	private Optional<JobExecution> abandonInterruptedExecution(QueuedJob queuedJob) {
+		Long idProject = queuedJob.getIdProject().longValue();
+		Optional<JobExecution> interrupted = jobExplorer.findRunningJobExecutions(queuedJob.getJobName()).stream()
+				.filter(jobExecution -> idProject.equals(jobExecution.getJobParameters().getLong(BatchConstants.PARAM_ID_PROJECT)))
+				.max(Comparator.comparing(JobExecution::getId));
+		interrupted.ifPresent(jobExecution -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			log.info("Restarting execution {} of {} of project {}, left by another node", jobExecution.getId(), queuedJob.getJobName(), idProject);
+			LocalDateTime now = LocalDateTime.now();
+			jobExecution.getStepExecutions().stream()
+					.filter(stepExecution -> stepExecution.getStatus().isRunning())
+					.forEach(stepExecution -> {
+						stepExecution.setStatus(BatchStatus.FAILED);
+						stepExecution.setExitStatus(ExitStatus.FAILED.addExitDescription("Node lost"));
+						stepExecution.setEndTime(now);
+						jobRepository.update(stepExecution);
+					});
+			jobExecution.setStatus(BatchStatus.FAILED);
+			jobExecution.setExitStatus(ExitStatus.FAILED.addExitDescription("Node lost"));
+			jobExecution.setEndTime(now);
+			jobRepository.update(jobExecution);
+			analysisPartitionService.deleteByJobExecution(jobExecution.getId());
+		}));
+		return interrupted;
+	}
+
+	private void requeueAbandoned(String previousWorker) {
+		int requeued = analysisQueueService.requeueAbandoned(previousWorker, this::completed);
+		if (requeued > 0) {
+			log.info("{} interrupted jobs queued again", requeued);
+		}
+	}
+
+	/**
+	 * Whether the node that went silent completed the job before it could remove it from the queue, running it
+	 * again would fail as the job instance is already complete.
+	 */
+	private boolean completed(QueuedJob queuedJob) {
+		JobInstance jobInstance = jobExplorer.getJobInstance(queuedJob.getJobName(), jobParameters(queuedJob));
+		if (jobInstance == null) {
+			return false;
+		}
+		JobExecution lastExecution = jobExplorer.getLastJobExecution(jobInstance);
+		return lastExecution != null && BatchStatus.COMPLETED.equals(lastExecution.getStatus());
+	}
+
+	private JobParameters jobParameters(QueuedJob queuedJob) {
+		long idProject = queuedJob.getIdProject().longValue();
+		if (JOB_PROCESS_PROJECT_RESTART.equals(queuedJob.getJobName())) {
+			return new JobParametersBuilder()
+					.addLong(BatchConstants.PARAM_ID_PROJECT, idProject, false)
+					// one job instance per queued job, whichever node runs it
+					.addLong(BatchConstants.PARAM_ID_QUEUED_JOB, queuedJob.getId().longValue())
+					.toJobParameters();
+		}
+		return new JobParametersBuilder()
+				.addLong(BatchConstants.PARAM_ID_PROJECT, idProject)
+				.toJobParameters();
+	}
+}
@@ -0,0 +1,184 @@
+package pt.iscteiul.analyx.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Deletes the artifacts and source files of a project with set based statements over bounded ranges of
+ * keys, so every call is a short transaction and nothing is loaded into the persistence context.
+ * Methods go first because they reference their class, then classes with their artifact rows, then source files.
+ * <p>
+ * Source files that changed are detached from their classes and deleted first, then their artifacts are deleted
+ * in ranges like a whole project, together with the ones analyzed before source files were tracked.
+ */
+@Service
+public class ArtifactDeletionService {
+	private static final String NEXT_ARTIFACT_CHUNK = """
+			select max(id_artifact) from (
+				select id_artifact from artifact
+				where id_project = ? and id_artifact > ?
+				order by id_artifact
+				limit ?
+			) chunk
+			""";
+	private static final String NEXT_SOURCE_FILE_CHUNK = """
+			select max(id_source_file) from (
+				select id_source_file from source_file
+				where id_project = ? and id_source_file > ?
+				order by id_source_file
+				limit ?
+			) chunk
+			""";
+	private static final String DELETE_METHOD_ARTIFACTS = """
+			delete from method_artifact
+			where id_method_artifact > ? and id_method_artifact <= ?
+			and id_method_artifact in (select id_artifact from artifact where id_project = ?)
+			""";
+	private static final String DELETE_CLASS_ARTIFACTS = """
+			delete from class_artifact
+			where id_class_artifact > ? and id_class_artifact <= ?
+			and id_class_artifact in (select id_artifact from artifact where id_project = ?)
+			""";
+	private static final String DELETE_ARTIFACTS = """
+			delete from artifact
+			where id_artifact > ? and id_artifact <= ? and id_project = ?
+			""";
+	private static final String DELETE_SKIPPED_FILES = """
+			delete from skipped_file
+			where id_source_file > ? and id_source_file <= ? and id_project = ?
+			""";
+	private static final String DELETE_SOURCE_FILES = """
+			delete from source_file
+			where id_source_file > ? and id_source_file <= ? and id_project = ?
+			""";
+	private static final String FIND_DETACHED_CLASS = """
+			select id_class_artifact from class_artifact
+			where id_project = ? and id_source_file is null
+			limit 1
+			""";
+	private static final String DETACH_CLASS_ARTIFACTS = """
+			update class_artifact set id_source_file = null
+			where id_project = ? and id_source_file in (%s)
+			""";
+	private static final String DELETE_SOURCE_FILES_BY_ID = """
+			delete from %s
+			where id_project = ? and id_source_file in (%s)
+			""";
+	private static final String DELETE_DETACHED_METHOD_ARTIFACTS = """
+			delete from method_artifact
+			where id_method_artifact > ? and id_method_artifact <= ?
+			and id_class_artifact in (select id_class_artifact from class_artifact where id_project = ? and id_source_file is null)
+			""";
+	private static final String DELETE_DETACHED_CLASS_ARTIFACTS = """
+			delete from class_artifact
+			where id_class_artifact > ? and id_class_artifact <= ? and id_project = ? and id_source_file is null
+			""";
+	// artifact rows left without their class or method row by the two statements above
+	private static final String DELETE_ORPHAN_ARTIFACTS = """
+			delete from artifact
+			where id_artifact > ? and id_artifact <= ? and id_project = ?
+			and not exists (select 1 from class_artifact c where c.id_class_artifact = artifact.id_artifact)
+			and not exists (select 1 from method_artifact m where m.id_method_artifact = artifact.id_artifact)
+			""";
+
+	public enum Phase {
+		METHODS,
+		CLASSES,
+		SOURCE_FILES,
+		FINISHED;
+
+		private Phase next() {
+			return values()[ordinal() + 1];
+		}
+	}
+
+	/**
+	 * Position of a deletion, everything up to {@code lastId} was already deleted in the current phase.
+	 */
+	public record Cursor(Phase phase, int lastId) {
+		public static final Cursor START = new Cursor(Phase.METHODS, 0);
+	}
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	public Cursor deleteNextChunk(Integer idProject, Cursor cursor, int chunkSize) {
+		Phase phase = cursor.phase();
+		if (Phase.FINISHED.equals(phase)) {
+			return cursor;
+		}
+
+		String nextChunk = Phase.SOURCE_FILES.equals(phase) ? NEXT_SOURCE_FILE_CHUNK : NEXT_ARTIFACT_CHUNK;
+		Integer upperId = jdbcTemplate.queryForObject(nextChunk, Integer.class, idProject, cursor.lastId(), chunkSize);
+		if (isNull(upperId)) {
+			return new Cursor(phase.next(), 0);
+		}
+
+		switch (phase) {
+			case METHODS -> jdbcTemplate.update(DELETE_METHOD_ARTIFACTS, cursor.lastId(), upperId, idProject);
+			case CLASSES -> {
+				jdbcTemplate.update(DELETE_CLASS_ARTIFACTS, cursor.lastId(), upperId, idProject);
+				jdbcTemplate.update(DELETE_ARTIFACTS, cursor.lastId(), upperId, idProject);
+			}
+			case SOURCE_FILES -> {
+				jdbcTemplate.update(DELETE_SKIPPED_FILES, cursor.lastId(), upperId, idProject);
+				jdbcTemplate.update(DELETE_SOURCE_FILES, cursor.lastId(), upperId, idProject);
+			}
+			default -> throw new IllegalStateException("Unexpected deletion phase " + phase);
+		}
+		return new Cursor(phase, upperId);
+	}
+
+	/**
+	 * Detaches the given source files from their classes and deletes them with their skipped file rows, their
+	 * artifacts are left to {@link #deleteNextDetachedChunk}.
+	 */
+	public void detachSourceFiles(Integer idProject, List<Integer> idSourceFiles) {
+		if (idSourceFiles.isEmpty()) {
+			return;
+		}
+		String ids = String.join(",", Collections.nCopies(idSourceFiles.size(), "?"));
+		Object[] parameters = Stream.concat(Stream.of(idProject), idSourceFiles.stream()).toArray();
+		jdbcTemplate.update(DETACH_CLASS_ARTIFACTS.formatted(ids), parameters);
+		jdbcTemplate.update(DELETE_SOURCE_FILES_BY_ID.formatted("skipped_file", ids), parameters);
+		jdbcTemplate.update(DELETE_SOURCE_FILES_BY_ID.formatted("source_file", ids), parameters);
+	}
+
+	/**
+	 * Same ranges as {@link #deleteNextChunk}, deleting only the artifacts of classes without a source file:
+	 * detached by {@link #detachSourceFiles} or analyzed before source files were tracked.
+	 */
+	public Cursor deleteNextDetachedChunk(Integer idProject, Cursor cursor, int chunkSize) {
+		Phase phase = cursor.phase();
+		if (Cursor.START.equals(cursor) && !hasDetachedClasses(idProject)) {
+			return new Cursor(Phase.FINISHED, 0);
+		}
+		if (!Phase.METHODS.equals(phase) && !Phase.CLASSES.equals(phase)) {
+			return new Cursor(Phase.FINISHED, 0);
+		}
+
+		Integer upperId = jdbcTemplate.queryForObject(NEXT_ARTIFACT_CHUNK, Integer.class, idProject, cursor.lastId(), chunkSize);
+		if (isNull(upperId)) {
+			return new Cursor(Phase.METHODS.equals(phase) ? Phase.CLASSES : Phase.FINISHED, 0);
+		}
+
+		if (Phase.METHODS.equals(phase)) {
+			jdbcTemplate.update(DELETE_DETACHED_METHOD_ARTIFACTS, cursor.lastId(), upperId, idProject);
+		} else {
+			jdbcTemplate.update(DELETE_DETACHED_CLASS_ARTIFACTS, cursor.lastId(), upperId, idProject);
+			jdbcTemplate.update(DELETE_ORPHAN_ARTIFACTS, cursor.lastId(), upperId, idProject);
+		}
+		return new Cursor(phase, upperId);
+	}
+
+	private boolean hasDetachedClasses(Integer idProject) {
+		return !jdbcTemplate.queryForList(FIND_DETACHED_CLASS, Integer.class, idProject).isEmpty();
+	}
+}
@@ -1,13 +1,32 @@
 package pt.iscteiul.analyx.service;
 
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import pt.iscteiul.analyx.dto.ClassPageDTO;
+import pt.iscteiul.analyx.dto.ClassSort;
 import pt.iscteiul.analyx.entity.ClassArtifact;
+import pt.iscteiul.analyx.entity.MethodArtifact;
 import pt.iscteiul.analyx.entity.Project;
+import pt.iscteiul.analyx.entity.SkipReason;
+import pt.iscteiul.analyx.entity.SkippedFile;
+import pt.iscteiul.analyx.entity.SourceFile;
 import pt.iscteiul.analyx.repository.ClassArtifactRepository;
 import pt.iscteiul.analyx.repository.MethodArtifactRepository;
+import pt.iscteiul.analyx.repository.SkippedFileRepository;
+import pt.iscteiul.analyx.repository.SourceFileRepository;
 
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Objects.isNull;
 
 @Service
 public class ArtifactService {
@@ -17,14 +36,75 @@ public class ArtifactService {
 	@Autowired
 	private ClassArtifactRepository classArtifactRepository;
 
+	@Autowired
+	private SourceFileRepository sourceFileRepository;
+
+	@Autowired
+	private SkippedFileRepository skippedFileRepository;
+
+	public List<SourceFile> findSourceFiles(Project project) {
+		return sourceFileRepository.findByProject(project);
+	}
+
+	public Set<String> findAnalyzedPaths(Project project) {
+		return sourceFileRepository.findPathsByProject(project);
+	}
+
+	public SourceFile saveSourceFile(Project project, String path, String sha256) {
+		SourceFile sourceFile = new SourceFile();
+		sourceFile.setProject(project);
+		sourceFile.setPath(path);
+		sourceFile.setSha256(sha256);
+		return sourceFileRepository.save(sourceFile);
+	}
+
+	public SkippedFile saveSkippedFile(SourceFile sourceFile, SkipReason reason, String detail) {
+		SkippedFile skippedFile = new SkippedFile();
+		skippedFile.setProject(sourceFile.getProject());
+		skippedFile.setSourceFile(sourceFile);
+		skippedFile.setReason(reason);
+		skippedFile.setDetail(StringUtils.abbreviate(detail, 500));
+		skippedFile.setSkippedDate(LocalDateTime.now());
+		return skippedFileRepository.save(skippedFile);
+	}
+
+	/**
+	 * A page of the classes of the project, read after the keyset of the previous page so every page costs the same
+	 * however deep it is.
+	 */
+	public Window<ClassArtifact> findClassPage(Integer idProject, ClassPageDTO page) {
+		Sort.Direction direction = page.descending() ? Sort.Direction.DESC : Sort.Direction.ASC;
+		String property = page.sortOrDefault().getProperty();
+		Sort sort = ClassSort.ID.equals(page.sortOrDefault())
+				? Sort.by(direction, property)
+				: Sort.by(direction, property, ClassSort.ID.getProperty());
+
+		Specification<ClassArtifact> ofProject = (root, query, cb) -> cb.equal(root.get("idProject"), idProject);
+		Specification<ClassArtifact> filter = ofProject
+				.and(atLeast(ClassSort.LOC, page.minLoc()))
+				.and(atLeast(ClassSort.CBO, page.minCbo()))
+				.and(atLeast(ClassSort.DIT, page.minDit()))
+				.and(atLeast(ClassSort.COMPLEXITY, page.minComplexity()));
+		return classArtifactRepository.findBy(filter, query -> query.sortBy(sort).limit(page.sizeOrDefault()).scroll(position(page)));
+	}
+
+	public List<MethodArtifact> findMethods(Integer idProject, Integer idClassArtifact) {
+		return methodArtifactRepository.findByClassArtifact_IdAndClassArtifact_IdProjectOrderById(idClassArtifact, idProject);
+	}
 
-	public Project deleteByProject(Project project) {
-		methodArtifactRepository.deleteByProject(project);
-		classArtifactRepository.deleteByProject(project);
-		return project;
+	private static ScrollPosition position(ClassPageDTO page) {
+		if (page.firstPage()) {
+			return ScrollPosition.keyset();
+		}
+		Map<String, Object> keys = new LinkedHashMap<>();
+		if (!ClassSort.ID.equals(page.sortOrDefault())) {
+			keys.put(page.sortOrDefault().getProperty(), page.afterValue());
+		}
+		keys.put(ClassSort.ID.getProperty(), page.afterId());
+		return ScrollPosition.forward(keys);
 	}
 
-	public List<ClassArtifact> findByProject(Integer idProject, String username) {
-		return classArtifactRepository.findByProjectIdAndUser(idProject, username);
+	private static Specification<ClassArtifact> atLeast(ClassSort column, Integer min) {
+		return isNull(min) ? null : (root, query, cb) -> cb.ge(root.get(column.getProperty()), min);
 	}
 }
@@ -1,90 +1,420 @@
 package pt.iscteiul.analyx.service;
 
-import org.springframework.core.io.ByteArrayResource;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import pt.iscteiul.analyx.entity.Artifact;
-import pt.iscteiul.analyx.entity.ClassArtifact;
-import pt.iscteiul.analyx.entity.MethodArtifact;
+import org.springframework.util.StreamUtils;
+import pt.iscteiul.analyx.entity.Project;
+import pt.iscteiul.analyx.entity.StatusAnalysis;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
+@Slf4j
 @Service
 public class ExportService {
 
 	public static final String COMMA = ",";
+	private static final String CSV_HEADER = "Classe,Método,LOC,Atributos,Métodos,Complexidade,CBO,DIT,NOC";
+	private static final int CSV_COLUMNS = 9;
+	private static final int EXPORT_BUFFER_CHARS = 64 * 1024;
+	private static final int GZIP_BUFFER_BYTES = 64 * 1024;
+	private static final String GZIP_EXTENSION = ".gz";
+	// driven by the class_artifact project index, methods come through their class index, the CSV leaves out fan in
+	// and fan out
+	private static final String EXPORT_METHODS = """
+			select
+				ca.name, ma.name, ma.lines_code, c.number_attributes, c.method_count, m.cyclomatic_complexity,
+				c.cbo, c.dit, c.noc, c.fan_in, c.fan_out
+			from
+				class_artifact c
+				inner join artifact ca on ca.id_artifact = c.id_class_artifact
+				inner join method_artifact m on m.id_class_artifact = c.id_class_artifact
+				inner join artifact ma on ma.id_artifact = m.id_method_artifact
+			where
+				c.id_project = ?
+			""";
 
-	public ByteArrayResource exportToCSV(List<ClassArtifact> metrics) {
+	// classes in the order of the class_artifact project index, which spares the sort, each with its methods
+	private static final String EXPORT_ARTIFACTS = """
+			select
+				c.id_class_artifact, ca.name, ca.lines_code, c.number_attributes, c.method_count, c.cbo, c.dit, c.noc,
+				m.id_method_artifact, ma.name, ma.lines_code, m.cyclomatic_complexity
+			from
+				class_artifact c
+				inner join artifact ca on ca.id_artifact = c.id_class_artifact
+				left join method_artifact m on m.id_class_artifact = c.id_class_artifact
+				left join artifact ma on ma.id_artifact = m.id_method_artifact
+			where
+				c.id_project = ?
+			order by
+				c.id_class_artifact
+			""";
 
-		// Dados
-		byte[] csvData = metrics.stream()
-				.flatMap(c -> c.getMethodsArtifact().stream()
-						.map(m ->
-								Stream.of(
-												c.getName(),
-												m.getName(),
-												m.getLinesCode(),
-												c.getNumberAttributes(),
-												c.getMethodsArtifact().size(),
-												m.getCyclomaticComplexity(),
-												c.getCbo(),
-												c.getDit(),
-												c.getNoc()
-										)
-										.map(String::valueOf)
-										.map(this::escapeCSV)
-										.collect(Collectors.joining(COMMA))
-						))
-				.collect(Collectors.joining(System.lineSeparator(), "Classe,Método,LOC,Atributos,Métodos,Complexidade,CBO,DIT,NOC", ""))
-				.getBytes(StandardCharsets.UTF_8);
+	public static final String APPLICATION_ARROW_STREAM_VALUE = "application/vnd.apache.arrow.stream";
+	private static final ArrowType.Int ARROW_INT = new ArrowType.Int(32, true);
+	private static final DictionaryEncoding ARROW_CLASS_NAMES = new DictionaryEncoding(1, false, ARROW_INT);
+	private static final DictionaryEncoding ARROW_METHOD_NAMES = new DictionaryEncoding(2, false, ARROW_INT);
+	// metric columns in the order of the EXPORT_METHODS columns that follow the names
+	private static final List<String> ARROW_METRICS = List.of(
+			"loc", "attributes", "methods", "complexity", "cbo", "dit", "noc", "fan_in", "fan_out");
+	private static final Schema ARROW_SCHEMA = arrowSchema();
 
-		return new ByteArrayResource(csvData);
+	@Getter
+	@RequiredArgsConstructor
+	public enum Format {
+		CSV("csv", new MediaType("text", "csv", StandardCharsets.UTF_8)),
+		JSON("json", MediaType.APPLICATION_JSON),
+		NDJSON("ndjson", MediaType.APPLICATION_NDJSON),
+		ARROW("arrows", MediaType.parseMediaType(APPLICATION_ARROW_STREAM_VALUE));
+
+		private final String extension;
+		private final MediaType mediaType;
+	}
+
+	@FunctionalInterface
+	private interface RowWriter {
+		void write(ResultSet rs) throws SQLException, IOException;
+	}
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private WorkspaceService workspaceService;
+
+	@Value("${analyx.export.fetch-size}")
+	private int exportFetchSize;
+
+	@Value("${analyx.export.arrow-batch-rows}")
+	private int arrowBatchRows;
+
+	/**
+	 * Writes the gzip of every export format into the workspace of the project, so downloads are served from
+	 * disk instead of querying the database each time.
+	 */
+	public void generateExports(Project project) throws IOException {
+		for (Format format : Format.values()) {
+			generateExport(project, format);
+		}
+	}
+
+	/**
+	 * The gzip of the export generated by the last analysis, generated now for finished projects analysed before
+	 * exports were generated. A project under analysis has none, its artifacts are still changing and only
+	 * {@link #generateExports} at the end of the analysis writes them.
+	 */
+	public Optional<Path> findGeneratedExport(Project project, Format format) throws IOException {
+		Path export = getExportFile(project, format);
+		if (Files.exists(export)) {
+			return Optional.of(export);
+		}
+		if (!StatusAnalysis.FINISHED.equals(project.getStatusAnalysis())) {
+			return Optional.empty();
+		}
+		return Optional.of(generateExport(project, format));
+	}
+
+	public void deleteGeneratedExports(Project project) throws IOException {
+		workspaceService.deleteExportsFolder(project);
+	}
+
+	private Path generateExport(Project project, Format format) throws IOException {
+		Path export = getExportFile(project, format);
+		// written aside and moved in place, a download never sees a partial file
+		Path temporary = Files.createTempFile(export.getParent(), export.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream outputStream = new GZIPOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(temporary)), GZIP_BUFFER_BYTES)) {
+				write(project.getId(), format, outputStream);
+			}
+			Files.move(temporary, export, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+		log.info("Generated {} export of project {}", format, project.getId());
+		return export;
+	}
+
+	private Path getExportFile(Project project, Format format) {
+		return workspaceService.getExportsFolder(project).resolve(format.getExtension() + GZIP_EXTENSION);
+	}
+
+	public void write(Integer idProject, Format format, OutputStream outputStream) throws IOException {
+		switch (format) {
+			case CSV -> writeCSV(idProject, outputStream);
+			case JSON -> writeJSON(idProject, outputStream);
+			case NDJSON -> writeNDJSON(idProject, outputStream);
+			case ARROW -> writeArrow(idProject, outputStream);
+		}
+	}
+
+	/**
+	 * Writes one row per method of the project straight from a forward only result set, so neither the entities
+	 * nor the CSV of the whole project are ever in memory. Rows are not sorted, a sort would make the database
+	 * materialize them all before the first one is sent.
+	 */
+	public void writeCSV(Integer idProject, OutputStream outputStream) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), EXPORT_BUFFER_CHARS);
+		writer.write(CSV_HEADER);
+		writer.write(System.lineSeparator());
+		streamRows(EXPORT_METHODS, idProject, rs -> {
+			writeCSVValue(writer, rs.getString(1));
+			for (int column = 2; column <= CSV_COLUMNS; column++) {
+				writer.write(COMMA);
+				writeCSVValue(writer, rs.getString(column));
+			}
+			writer.write(System.lineSeparator());
+		});
+		writer.flush();
 	}
 
-	public List<Map<String, Object>> exportToJSON(List<ClassArtifact> metrics) {
+	/**
+	 * Writes the classes of the project as a JSON array, each class followed by its methods, generated as the
+	 * rows come from the database.
+	 */
+	public void writeJSON(Integer idProject, OutputStream outputStream) throws IOException {
+		try (JsonGenerator generator = createGenerator(outputStream)) {
+			generator.writeStartArray();
+			writeArtifacts(idProject, generator, false);
+			generator.writeEndArray();
+		}
+	}
+
+	/**
+	 * Same objects as {@link #writeJSON}, one per line.
+	 */
+	public void writeNDJSON(Integer idProject, OutputStream outputStream) throws IOException {
+		try (JsonGenerator generator = createGenerator(outputStream)) {
+			writeArtifacts(idProject, generator, true);
+		}
+	}
+
+	/**
+	 * Writes the rows of the CSV, plus fan in and fan out, as an Arrow IPC stream with int columns for the
+	 * metrics and dictionary encoded names. Rows go out in record batches of {@code analyx.export.arrow-batch-rows}
+	 * filled from the cursor, each batch with dictionaries of its own names.
+	 */
+	public void writeArrow(Integer idProject, OutputStream outputStream) throws IOException {
+		try (BufferAllocator allocator = new RootAllocator();
+			 VectorSchemaRoot root = VectorSchemaRoot.create(ARROW_SCHEMA, allocator);
+			 ArrowDictionary classNames = new ArrowDictionary(ARROW_CLASS_NAMES, allocator);
+			 ArrowDictionary methodNames = new ArrowDictionary(ARROW_METHOD_NAMES, allocator);
+			 // the response stream is closed by the container
+			 ArrowStreamWriter writer = new ArrowStreamWriter(root,
+					 new DictionaryProvider.MapDictionaryProvider(classNames.getDictionary(), methodNames.getDictionary()),
+					 Channels.newChannel(StreamUtils.nonClosing(outputStream)))) {
+			root.allocateNew();
+			IntVector classColumn = (IntVector) root.getVector(0);
+			IntVector methodColumn = (IntVector) root.getVector(1);
+			List<FieldVector> metricColumns = root.getFieldVectors().subList(2, root.getFieldVectors().size());
+			writer.start();
+			int[] rows = {0};
+			streamRows(EXPORT_METHODS, idProject, rs -> {
+				int row = rows[0];
+				classColumn.setSafe(row, classNames.indexOf(rs.getString(1)));
+				methodColumn.setSafe(row, methodNames.indexOf(rs.getString(2)));
+				for (int metric = 0; metric < metricColumns.size(); metric++) {
+					int value = rs.getInt(metric + 3);
+					((IntVector) metricColumns.get(metric)).setSafe(row, rs.wasNull() ? 0 : 1, value);
+				}
+				if (++rows[0] == arrowBatchRows) {
+					writeArrowBatch(writer, root, rows[0], classNames, methodNames);
+					rows[0] = 0;
+				}
+			});
+			if (rows[0] > 0) {
+				writeArrowBatch(writer, root, rows[0], classNames, methodNames);
+			}
+			writer.end();
+		}
+	}
 
+	private static void writeArrowBatch(ArrowStreamWriter writer, VectorSchemaRoot root, int rows,
+										ArrowDictionary classNames, ArrowDictionary methodNames) throws IOException {
+		classNames.seal();
+		methodNames.seal();
+		root.setRowCount(rows);
+		// the writer sends a dictionary again only when it differs from the one of the previous batch
+		writer.writeBatch();
+		classNames.reset();
+		methodNames.reset();
+		root.getFieldVectors().forEach(ValueVector::reset);
+	}
 
-		return metrics.stream()
-				.flatMap(c -> Stream.concat(Stream.of(c), c.getMethodsArtifact().stream()))
-				.map(this::metricToMap)
-				.collect(Collectors.toList());
+	private static Schema arrowSchema() {
+		List<Field> fields = new ArrayList<>();
+		fields.add(new Field("class", new FieldType(false, ARROW_INT, ARROW_CLASS_NAMES), null));
+		fields.add(new Field("method", new FieldType(false, ARROW_INT, ARROW_METHOD_NAMES), null));
+		for (String metric : ARROW_METRICS) {
+			fields.add(Field.nullable(metric, ARROW_INT));
+		}
+		return new Schema(fields);
 	}
 
-	private Map<String, Object> metricToMap(Artifact metric) {
-		Map<String, Object> map = new HashMap<>();
-		map.put("id", metric.getId());
-		map.put("loc", metric.getLinesCode());
-		if (metric instanceof ClassArtifact c) {
-			map.put("classe", c.getName());
-			map.put("atributos", c.getNumberAttributes());
-			map.put("metodos", c.getMethodsArtifact().size());
+	/**
+	 * Names of the current record batch, each stored once and referenced by its index.
+	 */
+	private static final class ArrowDictionary implements AutoCloseable {
+		private final Map<String, Integer> indexes = new HashMap<>();
+		private final VarCharVector values;
+		@Getter
+		private final Dictionary dictionary;
 
-			map.put("cbo", c.getCbo());
-			map.put("dit", c.getDit());
-			map.put("noc", c.getNoc());
+		private ArrowDictionary(DictionaryEncoding encoding, BufferAllocator allocator) {
+			values = new VarCharVector("dictionary-" + encoding.getId(), allocator);
+			values.allocateNew();
+			dictionary = new Dictionary(values, encoding);
+		}
 
+		private int indexOf(String value) {
+			return indexes.computeIfAbsent(value, key -> {
+				int index = indexes.size();
+				values.setSafe(index, key.getBytes(StandardCharsets.UTF_8));
+				return index;
+			});
 		}
-		if (metric instanceof MethodArtifact m) {
-			map.put("metodo", m.getName());
-			map.put("complexidade", m.getCyclomaticComplexity());
 
+		private void seal() {
+			values.setValueCount(indexes.size());
 		}
-		return map;
+
+		private void reset() {
+			indexes.clear();
+			values.reset();
+		}
+
+		@Override
+		public void close() {
+			values.close();
+		}
+	}
+
+	private JsonGenerator createGenerator(OutputStream outputStream) throws IOException {
+		JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8);
+		// the response stream is closed by the container
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		generator.setRootValueSeparator(null);
+		return generator;
+	}
+
+	private void writeArtifacts(Integer idProject, JsonGenerator generator, boolean lines) throws IOException {
+		int[] lastClass = {0};
+		streamRows(EXPORT_ARTIFACTS, idProject, rs -> {
+			int idClass = rs.getInt(1);
+			if (idClass != lastClass[0]) {
+				lastClass[0] = idClass;
+				generator.writeStartObject();
+				generator.writeNumberField("id", idClass);
+				generator.writeNumberField("loc", rs.getInt(3));
+				generator.writeStringField("classe", rs.getString(2));
+				generator.writeNumberField("atributos", rs.getInt(4));
+				generator.writeNumberField("metodos", rs.getInt(5));
+				generator.writeNumberField("cbo", rs.getInt(6));
+				generator.writeNumberField("dit", rs.getInt(7));
+				generator.writeNumberField("noc", rs.getInt(8));
+				generator.writeEndObject();
+				endValue(generator, lines);
+			}
+			int idMethod = rs.getInt(9);
+			if (!rs.wasNull()) {
+				generator.writeStartObject();
+				generator.writeNumberField("id", idMethod);
+				generator.writeNumberField("loc", rs.getInt(11));
+				generator.writeStringField("metodo", rs.getString(10));
+				generator.writeNumberField("complexidade", rs.getInt(12));
+				generator.writeEndObject();
+				endValue(generator, lines);
+			}
+		});
+	}
+
+	private static void endValue(JsonGenerator generator, boolean lines) throws IOException {
+		if (lines) {
+			generator.writeRaw('\n');
+		}
+	}
+
+	private void streamRows(String sql, Integer idProject, RowWriter rowWriter) throws IOException {
+		try {
+			jdbcTemplate.query(connection -> streamingStatement(connection, sql, idProject), rs -> {
+				try {
+					rowWriter.write(rs);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			// the client went away, the rest of the rows are not read
+			throw e.getCause();
+		}
+	}
+
+	private PreparedStatement streamingStatement(Connection connection, String sql, Integer idProject) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		statement.setFetchSize(exportFetchSize);
+		statement.setInt(1, idProject);
+		return statement;
 	}
 
-	private String escapeCSV(String value) {
+	private void writeCSVValue(Writer writer, String value) throws IOException {
 		if (value == null) {
-			return "";
+			return;
 		}
 
 		if (value.contains(COMMA) || value.contains("\"") || value.contains("\n")) {
-			return "\"" + value.replace("\"", "\"\"") + "\"";
+			writer.write('"');
+			writer.write(value.replace("\"", "\"\""));
+			writer.write('"');
+			return;
 		}
 
-		return value;
+		writer.write(value);
 	}
-}
\ No newline at end of file
+}
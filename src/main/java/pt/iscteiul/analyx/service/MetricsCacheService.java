@@ -0,0 +1,259 @@
+package pt.iscteiul.analyx.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pt.iscteiul.analyx.entity.ClassArtifact;
+import pt.iscteiul.analyx.entity.MethodArtifact;
+import pt.iscteiul.analyx.entity.Project;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CK metrics of the source files analyzed in file mode, shared by every project and keyed by the SHA-256 of
+ * the normalized content and the CK version: a file parsed on its own always gives the same metrics, so identical
+ * vendored or generated sources are parsed once. Entries live in the {@code metrics_cache} table, the most
+ * recently used also in a bounded in-process LRU; the table is trimmed to its least recently used entries on a
+ * schedule. Hits only queue a touch, written in one batch before the eviction and every touch interval.
+ */
+@Slf4j
+@Service
+public class MetricsCacheService {
+	private static final String FIND = "select metrics from metrics_cache where content_hash = ?";
+	// a concurrent put of the same content by another partition is just the same value
+	private static final String INSERT = """
+			insert ignore into metrics_cache (content_hash, metrics, last_used_date)
+			values (?, ?, ?)
+			""";
+	private static final String TOUCH = "update metrics_cache set last_used_date = ? where content_hash = ?";
+	private static final String EVICTION_CUTOFF = """
+			select last_used_date from metrics_cache
+			order by last_used_date desc
+			limit 1 offset ?
+			""";
+	private static final String EVICT = "delete from metrics_cache where last_used_date <= ?";
+	private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+	private static final String CK_POM_PROPERTIES = "/META-INF/maven/com.github.mauricioaniche/ck/pom.properties";
+
+	public record CachedMethod(String name, Integer linesCode, Integer cyclomaticComplexity) {
+	}
+
+	public record CachedClass(String name, Integer linesCode, Integer numberAttributes, Integer dit, Integer cbo,
+							  Integer noc, Integer fanIn, Integer fanOut, List<CachedMethod> methods) {
+	}
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${analyx.metrics-cache.enabled}")
+	private boolean enabled;
+
+	@Value("${analyx.metrics-cache.memory-entries}")
+	private int memoryEntries;
+
+	@Value("${analyx.metrics-cache.max-entries}")
+	private int maxEntries;
+
+	private Map<String, List<CachedClass>> memory;
+
+	private final Set<String> pendingTouches = ConcurrentHashMap.newKeySet();
+
+	private String ckVersion;
+
+	@PostConstruct
+	public void createMemoryCache() {
+		ckVersion = readCkVersion();
+		memory = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, List<CachedClass>> eldest) {
+				return size() > memoryEntries;
+			}
+		});
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Hash of the content without BOM, with {@code \n} line endings and no trailing blanks, none of which
+	 * changes the metrics, salted with the CK version so an upgrade doesn't serve the metrics of the old one.
+	 */
+	public String contentHash(byte[] content) {
+		String text = new String(content, StandardCharsets.UTF_8);
+		if (startsWithBom(content)) {
+			text = text.substring(1);
+		}
+		String normalized = text.lines()
+				.map(String::stripTrailing)
+				.reduce(new StringBuilder(), (builder, line) -> builder.append(line).append('\n'), StringBuilder::append)
+				.toString();
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(("ck " + ckVersion + "\n").getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @return new artifacts of {@code project} with the cached metrics of the content, if any
+	 */
+	public Optional<List<ClassArtifact>> find(String contentHash, Project project) {
+		List<CachedClass> cached = memory.get(contentHash);
+		if (cached != null) {
+			pendingTouches.add(contentHash);
+			count("memory_hit");
+			return Optional.of(toClassArtifacts(cached, project));
+		}
+		List<String> stored = jdbcTemplate.queryForList(FIND, String.class, contentHash);
+		if (stored.isEmpty()) {
+			count("miss");
+			return Optional.empty();
+		}
+		cached = fromJson(stored.getFirst());
+		memory.put(contentHash, cached);
+		pendingTouches.add(contentHash);
+		count("database_hit");
+		return Optional.of(toClassArtifacts(cached, project));
+	}
+
+	public void put(String contentHash, List<ClassArtifact> classArtifacts) {
+		List<CachedClass> cached = classArtifacts.stream().map(MetricsCacheService::toCachedClass).toList();
+		memory.put(contentHash, cached);
+		jdbcTemplate.update(INSERT, contentHash, toJson(cached), Timestamp.valueOf(LocalDateTime.now()));
+	}
+
+	/**
+	 * Writes the last use of the entries hit since the previous flush, so the eviction keeps the hottest ones.
+	 */
+	@Scheduled(fixedDelayString = "${analyx.metrics-cache.touch-interval-ms}")
+	public void flushTouches() {
+		if (pendingTouches.isEmpty()) {
+			return;
+		}
+		Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+		List<Object[]> touches = new ArrayList<>();
+		for (String contentHash : pendingTouches) {
+			pendingTouches.remove(contentHash);
+			touches.add(new Object[]{now, contentHash});
+		}
+		jdbcTemplate.batchUpdate(TOUCH, touches);
+	}
+
+	@Scheduled(fixedDelayString = "${analyx.metrics-cache.eviction-interval-ms}")
+	public void evict() {
+		if (!enabled) {
+			return;
+		}
+		flushTouches();
+		List<Timestamp> cutoff = jdbcTemplate.queryForList(EVICTION_CUTOFF, Timestamp.class, maxEntries);
+		if (!cutoff.isEmpty()) {
+			int evicted = jdbcTemplate.update(EVICT, cutoff.getFirst());
+			log.info("Evicted {} least recently used entries of the metrics cache", evicted);
+		}
+	}
+
+	private void count(String result) {
+		meterRegistry.counter("analyx.metrics.cache", "result", result).increment();
+	}
+
+	private static String readCkVersion() {
+		try (InputStream in = MetricsCacheService.class.getResourceAsStream(CK_POM_PROPERTIES)) {
+			if (in == null) {
+				throw new IllegalStateException("Cannot find the CK version at " + CK_POM_PROPERTIES);
+			}
+			Properties properties = new Properties();
+			properties.load(in);
+			return properties.getProperty("version");
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot read the CK version", e);
+		}
+	}
+
+	private static boolean startsWithBom(byte[] content) {
+		return content.length >= UTF8_BOM.length
+				&& content[0] == UTF8_BOM[0] && content[1] == UTF8_BOM[1] && content[2] == UTF8_BOM[2];
+	}
+
+	private static CachedClass toCachedClass(ClassArtifact c) {
+		return new CachedClass(c.getName(), c.getLinesCode(), c.getNumberAttributes(), c.getDit(), c.getCbo(),
+				c.getNoc(), c.getFanIn(), c.getFanOut(),
+				c.getMethodsArtifact().stream()
+						.map(m -> new CachedMethod(m.getName(), m.getLinesCode(), m.getCyclomaticComplexity()))
+						.toList());
+	}
+
+	private static List<ClassArtifact> toClassArtifacts(List<CachedClass> cached, Project project) {
+		return cached.stream().map(c -> {
+			ClassArtifact classArtifact = new ClassArtifact();
+			classArtifact.setProject(project);
+			classArtifact.setName(c.name());
+			classArtifact.setLinesCode(c.linesCode());
+			classArtifact.setNumberAttributes(c.numberAttributes());
+			classArtifact.setDit(c.dit());
+			classArtifact.setCbo(c.cbo());
+			classArtifact.setNoc(c.noc());
+			classArtifact.setFanIn(c.fanIn());
+			classArtifact.setFanOut(c.fanOut());
+			classArtifact.setMethodsArtifact(c.methods().stream().map(m -> {
+				MethodArtifact methodArtifact = new MethodArtifact();
+				methodArtifact.setName(m.name());
+				methodArtifact.setLinesCode(m.linesCode());
+				methodArtifact.setCyclomaticComplexity(m.cyclomaticComplexity());
+				methodArtifact.setClassArtifact(classArtifact);
+				methodArtifact.setProject(project);
+				return methodArtifact;
+			}).toList());
+			return classArtifact;
+		}).toList();
+	}
+
+	private String toJson(List<CachedClass> cached) {
+		try {
+			return objectMapper.writeValueAsString(cached);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Cannot serialize cached metrics", e);
+		}
+	}
+
+	private List<CachedClass> fromJson(String json) {
+		try {
+			return objectMapper.readValue(json, new TypeReference<>() {
+			});
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Cannot read cached metrics", e);
+		}
+	}
+}
@@ -34,7 +34,13 @@ public class ProjectService {
 	private ProjectBatchServiceManager projectBatchServiceManager;
 
 	@Autowired
-	private ArtifactService artifactService;
+	private ProjectSummaryService projectSummaryService;
+
+	@Autowired
+	private AnalysisQueueService analysisQueueService;
+
+	@Autowired
+	private AnalysisPartitionService analysisPartitionService;
 
 	public List<Project> findAllByUserName(String userName) {
 		return projectRepository.findByUser_Name(userName);
@@ -111,11 +117,15 @@ public class ProjectService {
 
 	@Transactional
 	public void delete(Integer idProject) {
+		// the artifacts and source files were deleted in chunks before, see DeleteProjectTasklet
 		projectRepository.findById(idProject)
 				.map(workspaceService::deleteProjectFiles)
-				.map(artifactService::deleteByProject)
-				.ifPresent(projectRepository::delete);
-
+				.ifPresent(project -> {
+					projectSummaryService.deleteByProject(project);
+					analysisPartitionService.deleteByProject(idProject);
+					analysisQueueService.removeQueued(idProject);
+					projectRepository.delete(project);
+				});
 	}
 
 	@Transactional
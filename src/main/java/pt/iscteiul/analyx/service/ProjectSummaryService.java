@@ -0,0 +1,84 @@
+package pt.iscteiul.analyx.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pt.iscteiul.analyx.entity.Project;
+import pt.iscteiul.analyx.entity.ProjectSummary;
+import pt.iscteiul.analyx.entity.StatusAnalysis;
+import pt.iscteiul.analyx.repository.ProjectSummaryRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * The {@code project_summary} of each project, aggregated by the database in one statement when an analysis
+ * finishes so the pages read a single row instead of every artifact.
+ */
+@Service
+public class ProjectSummaryService {
+	private static final String SUMMARIZE = """
+			replace into project_summary (id_project, class_count, method_count, lines_code, average_complexity,
+				max_complexity, methods_complexity_1_10, methods_complexity_11_20, methods_complexity_21_50,
+				methods_complexity_over_50, computed_date)
+			select
+				?,
+				(select count(*) from class_artifact where id_project = ?),
+				count(m.id_method_artifact),
+				coalesce(sum(a.lines_code), 0),
+				coalesce(avg(m.cyclomatic_complexity), 0),
+				coalesce(max(m.cyclomatic_complexity), 0),
+				coalesce(sum(case when m.cyclomatic_complexity <= 10 then 1 else 0 end), 0),
+				coalesce(sum(case when m.cyclomatic_complexity between 11 and 20 then 1 else 0 end), 0),
+				coalesce(sum(case when m.cyclomatic_complexity between 21 and 50 then 1 else 0 end), 0),
+				coalesce(sum(case when m.cyclomatic_complexity > 50 then 1 else 0 end), 0),
+				?
+			from
+				artifact a
+				inner join method_artifact m on m.id_method_artifact = a.id_artifact
+			where
+				a.id_project = ?
+			""";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ProjectSummaryRepository projectSummaryRepository;
+
+	@Transactional
+	public void summarize(Integer idProject) {
+		jdbcTemplate.update(SUMMARIZE, idProject, idProject, Timestamp.valueOf(LocalDateTime.now()), idProject);
+	}
+
+	/**
+	 * The summary of the project, computed now for finished projects analyzed before summaries existed. A project
+	 * never analyzed to the end has none yet, its artifacts may still be written.
+	 */
+	@Transactional
+	public Optional<ProjectSummary> getSummary(Project project) {
+		Optional<ProjectSummary> summary = projectSummaryRepository.findById(project.getId());
+		if (summary.isPresent() || !StatusAnalysis.FINISHED.equals(project.getStatusAnalysis())) {
+			return summary;
+		}
+		summarize(project.getId());
+		return projectSummaryRepository.findById(project.getId());
+	}
+
+	public Map<Integer, ProjectSummary> findByProjects(Collection<Project> projects) {
+		Iterable<ProjectSummary> summaries = projectSummaryRepository.findAllById(projects.stream().map(Project::getId).toList());
+		return StreamSupport.stream(summaries.spliterator(), false)
+				.collect(Collectors.toMap(ProjectSummary::getIdProject, Function.identity()));
+	}
+
+	public void deleteByProject(Project project) {
+		projectSummaryRepository.deleteById(project.getId());
+	}
+}
@@ -18,6 +18,7 @@ import java.util.stream.Stream;
 public class WorkspaceService {
 	public static final String APPLICATION_ZIP = "application/zip";
 	public static final String PROJECT_FILE = "project-file";
+	public static final String PROJECT_EXPORTS = "project-exports";
 	@Value("${analyx.project-files-directory}")
 	private String projectsWorkspace;
 
@@ -48,19 +49,27 @@ public class WorkspaceService {
 	public Project deleteProjectFiles(Project project) {
 		Path projectZipFile = getProjectZipFile(project);
 		deleteProjectFolder(project);
+		deleteExportsFolder(project);
 		Files.deleteIfExists(projectZipFile);
 		return project;
 	}
 
 	public void deleteProjectFolder(Project project) throws IOException {
-		Path projectFolder = getProjectFolder(project);
-		if (Files.exists(projectFolder)) {
-			try (Stream<Path> streamPath = Files.walk(projectFolder)) {
+		deleteFolder(getProjectFolder(project));
+	}
+
+	public void deleteExportsFolder(Project project) throws IOException {
+		deleteFolder(createWorkspace().resolve("%s-%d".formatted(PROJECT_EXPORTS, project.getId())));
+	}
+
+	private void deleteFolder(Path folder) throws IOException {
+		if (Files.exists(folder)) {
+			try (Stream<Path> streamPath = Files.walk(folder)) {
 				streamPath
 						.sorted(Comparator.reverseOrder()) // delete files before directories
 						.forEach(this::deleteSilently);
 			}
-			Files.deleteIfExists(projectFolder);
+			Files.deleteIfExists(folder);
 		}
 
 	}
@@ -76,4 +85,14 @@ public class WorkspaceService {
 		Path workspace = createWorkspace();
 		return workspace.resolve("%s-%d".formatted(PROJECT_FILE, project.getId()));
 	}
+
+	/**
+	 * Folder of the exports generated by the last analysis of the project, apart from the project folder which
+	 * is extracted again on every analysis.
+	 */
+	@SneakyThrows
+	public Path getExportsFolder(Project project) {
+		Path exportsFolder = createWorkspace().resolve("%s-%d".formatted(PROJECT_EXPORTS, project.getId()));
+		return Files.createDirectories(exportsFolder);
+	}
 }
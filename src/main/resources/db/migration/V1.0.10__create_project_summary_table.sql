@@ -0,0 +1,26 @@
+USE `analyx` ;
+
+-- -----------------------------------------------------
+-- Table `analyx`.`project_summary`
+-- totals of the last analysis of a project, computed when it finishes; methods are counted by cyclomatic
+-- complexity in the usual 1-10, 11-20, 21-50 and over 50 risk bands
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `analyx`.`project_summary` (
+  `id_project` INT NOT NULL,
+  `class_count` INT NOT NULL,
+  `method_count` INT NOT NULL,
+  `lines_code` BIGINT NOT NULL,
+  `average_complexity` DOUBLE NOT NULL,
+  `max_complexity` INT NOT NULL,
+  `methods_complexity_1_10` INT NOT NULL,
+  `methods_complexity_11_20` INT NOT NULL,
+  `methods_complexity_21_50` INT NOT NULL,
+  `methods_complexity_over_50` INT NOT NULL,
+  `computed_date` DATETIME NOT NULL,
+  PRIMARY KEY (`id_project`),
+  CONSTRAINT `fk_project_summary_project1`
+    FOREIGN KEY (`id_project`)
+    REFERENCES `analyx`.`project` (`id_project`)
+    ON DELETE NO ACTION
+    ON UPDATE NO ACTION)
+ENGINE = InnoDB;
@@ -0,0 +1,45 @@
+USE `analyx` ;
+
+-- -----------------------------------------------------
+-- Table `analyx`.`class_artifact`
+-- the project, method count and complexity (sum of the cyclomatic complexity of the methods) of each class,
+-- so a page of the classes of a project in any sort order is a range of one index
+-- -----------------------------------------------------
+ALTER TABLE `analyx`.`class_artifact`
+  ADD COLUMN `id_project` INT NULL,
+  ADD COLUMN `method_count` INT NULL,
+  ADD COLUMN `complexity` INT NULL;
+
+UPDATE `analyx`.`class_artifact` c
+  INNER JOIN `analyx`.`artifact` a ON a.`id_artifact` = c.`id_class_artifact`
+  SET c.`id_project` = a.`id_project`;
+
+UPDATE `analyx`.`class_artifact` c
+  LEFT JOIN (
+    SELECT `id_class_artifact`, COUNT(*) AS `method_count`, SUM(`cyclomatic_complexity`) AS `complexity`
+    FROM `analyx`.`method_artifact`
+    GROUP BY `id_class_artifact`
+  ) m ON m.`id_class_artifact` = c.`id_class_artifact`
+  SET c.`method_count` = COALESCE(m.`method_count`, 0),
+      c.`complexity` = COALESCE(m.`complexity`, 0);
+
+ALTER TABLE `analyx`.`class_artifact`
+  MODIFY COLUMN `id_project` INT NOT NULL,
+  MODIFY COLUMN `method_count` INT NOT NULL,
+  MODIFY COLUMN `complexity` INT NOT NULL,
+  ADD INDEX `class_artifact_project_idx` (`id_project` ASC, `id_class_artifact` ASC) VISIBLE,
+  ADD INDEX `class_artifact_project_cbo_idx` (`id_project` ASC, `cbo` ASC, `id_class_artifact` ASC) VISIBLE,
+  ADD INDEX `class_artifact_project_dit_idx` (`id_project` ASC, `dit` ASC, `id_class_artifact` ASC) VISIBLE,
+  ADD INDEX `class_artifact_project_complexity_idx` (`id_project` ASC, `complexity` ASC, `id_class_artifact` ASC) VISIBLE,
+  ADD CONSTRAINT `fk_class_artifact_project1`
+    FOREIGN KEY (`id_project`)
+    REFERENCES `analyx`.`project` (`id_project`)
+    ON DELETE NO ACTION
+    ON UPDATE NO ACTION;
+
+-- -----------------------------------------------------
+-- Table `analyx`.`artifact`
+-- classes sorted by lines of code
+-- -----------------------------------------------------
+ALTER TABLE `analyx`.`artifact`
+  ADD INDEX `artifact_project_lines_code_idx` (`id_project` ASC, `lines_code` ASC, `id_artifact` ASC) VISIBLE;
@@ -0,0 +1,23 @@
+USE `analyx` ;
+
+-- -----------------------------------------------------
+-- Table `analyx`.`class_artifact`
+-- the lines of code of each class again, so classes sorted or filtered by lines of code are a range of an index
+-- of class_artifact like the other sort orders, instead of an artifact index that also holds every method
+-- -----------------------------------------------------
+ALTER TABLE `analyx`.`class_artifact`
+  ADD COLUMN `lines_code` INT NULL;
+
+UPDATE `analyx`.`class_artifact` c
+  INNER JOIN `analyx`.`artifact` a ON a.`id_artifact` = c.`id_class_artifact`
+  SET c.`lines_code` = a.`lines_code`;
+
+ALTER TABLE `analyx`.`class_artifact`
+  MODIFY COLUMN `lines_code` INT NOT NULL,
+  ADD INDEX `class_artifact_project_lines_code_idx` (`id_project` ASC, `lines_code` ASC, `id_class_artifact` ASC) VISIBLE;
+
+-- -----------------------------------------------------
+-- Table `analyx`.`artifact`
+-- -----------------------------------------------------
+ALTER TABLE `analyx`.`artifact`
+  DROP INDEX `artifact_project_lines_code_idx`;
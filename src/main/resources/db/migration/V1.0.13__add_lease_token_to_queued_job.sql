@@ -0,0 +1,9 @@
+USE `analyx` ;
+
+-- -----------------------------------------------------
+-- Table `analyx`.`queued_job`
+-- every claim of a job gets a new `lease_token`, only the holder of the current token renews or removes the job
+-- -----------------------------------------------------
+ALTER TABLE `analyx`.`queued_job`
+  ADD COLUMN `lease_token` CHAR(36) NULL AFTER `worker`,
+  ADD UNIQUE INDEX `queued_job_lease_token_idx` (`lease_token` ASC) VISIBLE;
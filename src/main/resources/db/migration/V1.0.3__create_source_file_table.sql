@@ -0,0 +1,28 @@
+USE `analyx` ;
+
+-- -----------------------------------------------------
+-- Table `analyx`.`source_file`
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `analyx`.`source_file` (
+  `id_source_file` INT NOT NULL AUTO_INCREMENT,
+  `path` VARCHAR(500) NOT NULL,
+  `sha256` CHAR(64) NOT NULL,
+  `id_project` INT NOT NULL,
+  PRIMARY KEY (`id_source_file`),
+  UNIQUE INDEX `project_path_UNIQUE` (`id_project` ASC, `path` ASC) VISIBLE,
+  CONSTRAINT `fk_source_file_project1`
+    FOREIGN KEY (`id_project`)
+    REFERENCES `analyx`.`project` (`id_project`)
+    ON DELETE NO ACTION
+    ON UPDATE NO ACTION)
+ENGINE = InnoDB;
+
+
+ALTER TABLE `analyx`.`class_artifact`
+  ADD COLUMN `id_source_file` INT NULL,
+  ADD INDEX `fk_class_artifact_source_file1_idx` (`id_source_file` ASC) VISIBLE,
+  ADD CONSTRAINT `fk_class_artifact_source_file1`
+    FOREIGN KEY (`id_source_file`)
+    REFERENCES `analyx`.`source_file` (`id_source_file`)
+    ON DELETE NO ACTION
+    ON UPDATE NO ACTION;
@@ -0,0 +1,12 @@
+USE `analyx` ;
+
+-- -----------------------------------------------------
+-- Table `analyx`.`artifact_sequence`
+-- hi/lo source of `artifact`.`id_artifact`, the batch writer reserves a whole block of ids at a time
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `analyx`.`artifact_sequence` (
+  `next_val` INT NOT NULL)
+ENGINE = InnoDB;
+
+INSERT INTO `analyx`.`artifact_sequence` (`next_val`)
+SELECT COALESCE(MAX(`id_artifact`), 0) + 1 FROM `analyx`.`artifact`;
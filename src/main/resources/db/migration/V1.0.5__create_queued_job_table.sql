@@ -0,0 +1,26 @@
+USE `analyx` ;
+
+-- -----------------------------------------------------
+-- Table `analyx`.`queued_job`
+-- jobs waiting for or holding one of the analysis slots, `id_project` has no foreign key because a
+-- delete job outlives its project
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `analyx`.`queued_job` (
+  `id_queued_job` INT NOT NULL AUTO_INCREMENT,
+  `id_project` INT NOT NULL,
+  `id_user` INT NOT NULL,
+  `job_name` VARCHAR(100) NOT NULL,
+  `priority` INT NOT NULL,
+  `status` TINYINT NOT NULL,
+  `queued_date` DATETIME NOT NULL,
+  `started_date` DATETIME NULL,
+  PRIMARY KEY (`id_queued_job`),
+  INDEX `queued_job_project_idx` (`id_project` ASC) VISIBLE,
+  INDEX `queued_job_status_idx` (`status` ASC, `priority` ASC, `queued_date` ASC) VISIBLE,
+  INDEX `fk_queued_job_user1_idx` (`id_user` ASC) VISIBLE,
+  CONSTRAINT `fk_queued_job_user1`
+    FOREIGN KEY (`id_user`)
+    REFERENCES `analyx`.`user` (`id_user`)
+    ON DELETE NO ACTION
+    ON UPDATE NO ACTION)
+ENGINE = InnoDB;
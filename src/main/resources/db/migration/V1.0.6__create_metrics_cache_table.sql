@@ -0,0 +1,13 @@
+USE `analyx` ;
+
+-- -----------------------------------------------------
+-- Table `analyx`.`metrics_cache`
+-- CK metrics of a source file as JSON, keyed by the SHA-256 of its normalized content and shared by every project
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `analyx`.`metrics_cache` (
+  `content_hash` CHAR(64) NOT NULL,
+  `metrics` MEDIUMTEXT NOT NULL,
+  `last_used_date` DATETIME NOT NULL,
+  PRIMARY KEY (`content_hash`),
+  INDEX `last_used_date_idx` (`last_used_date` ASC) VISIBLE)
+ENGINE = InnoDB;
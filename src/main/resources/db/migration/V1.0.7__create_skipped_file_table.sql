@@ -0,0 +1,27 @@
+USE `analyx` ;
+
+-- -----------------------------------------------------
+-- Table `analyx`.`skipped_file`
+-- source files left out of an analysis because their parse timed out, failed or was too large
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `analyx`.`skipped_file` (
+  `id_skipped_file` INT NOT NULL AUTO_INCREMENT,
+  `id_project` INT NOT NULL,
+  `id_source_file` INT NOT NULL,
+  `reason` INT NOT NULL,
+  `detail` VARCHAR(500) NULL,
+  `skipped_date` DATETIME NOT NULL,
+  PRIMARY KEY (`id_skipped_file`),
+  INDEX `fk_skipped_file_project1_idx` (`id_project` ASC) VISIBLE,
+  INDEX `fk_skipped_file_source_file1_idx` (`id_source_file` ASC) VISIBLE,
+  CONSTRAINT `fk_skipped_file_project1`
+    FOREIGN KEY (`id_project`)
+    REFERENCES `analyx`.`project` (`id_project`)
+    ON DELETE NO ACTION
+    ON UPDATE NO ACTION,
+  CONSTRAINT `fk_skipped_file_source_file1`
+    FOREIGN KEY (`id_source_file`)
+    REFERENCES `analyx`.`source_file` (`id_source_file`)
+    ON DELETE NO ACTION
+    ON UPDATE NO ACTION)
+ENGINE = InnoDB;
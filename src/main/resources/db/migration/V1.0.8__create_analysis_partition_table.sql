@@ -0,0 +1,21 @@
+USE `analyx` ;
+
+-- -----------------------------------------------------
+-- Table `analyx`.`analysis_partition`
+-- partitions of stepReadProjectFiles waiting for, or run by, a worker node of the cluster
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `analyx`.`analysis_partition` (
+  `id_analysis_partition` BIGINT NOT NULL AUTO_INCREMENT,
+  `id_job_execution` BIGINT NOT NULL,
+  `id_step_execution` BIGINT NOT NULL,
+  `step_name` VARCHAR(100) NOT NULL,
+  `status` INT NOT NULL,
+  `worker` VARCHAR(100) NULL,
+  `claimed_date` DATETIME NULL,
+  `heartbeat_date` DATETIME NULL,
+  `created_date` DATETIME NOT NULL,
+  PRIMARY KEY (`id_analysis_partition`),
+  UNIQUE INDEX `id_step_execution_UNIQUE` (`id_step_execution` ASC) VISIBLE,
+  INDEX `status_idx` (`status` ASC, `id_analysis_partition` ASC) VISIBLE,
+  INDEX `id_job_execution_idx` (`id_job_execution` ASC) VISIBLE)
+ENGINE = InnoDB;
@@ -0,0 +1,10 @@
+USE `analyx` ;
+
+-- -----------------------------------------------------
+-- Table `analyx`.`queued_job`
+-- a running job belongs to the node in `worker` while its lease lasts, then any node may take it over
+-- -----------------------------------------------------
+ALTER TABLE `analyx`.`queued_job`
+  ADD COLUMN `worker` VARCHAR(100) NULL AFTER `started_date`,
+  ADD COLUMN `lease_until` DATETIME NULL AFTER `worker`,
+  ADD INDEX `queued_job_lease_idx` (`status` ASC, `lease_until` ASC) VISIBLE;
@@ -0,0 +1,37 @@
+// Follows the running analyses of the dashboard through /projects/progress instead of reloading the page.
+(function () {
+    const source = new EventSource('/projects/progress');
+
+    function formatEta(seconds) {
+        if (seconds === null) {
+            return '';
+        }
+        const minutes = Math.floor(seconds / 60);
+        return minutes > 0 ? `, ${minutes}m ${seconds % 60}s left` : `, ${seconds}s left`;
+    }
+
+    source.addEventListener('progress', function (message) {
+        const progress = JSON.parse(message.data);
+        const cell = document.querySelector(`[data-progress-project="${progress.idProject}"]`);
+        if (!cell) {
+            return;
+        }
+        const bar = cell.querySelector('.progress');
+        const detail = cell.querySelector('.progress-detail');
+        if (progress.status) {
+            // the job is over, the stored status is the one to show now
+            window.location.reload();
+            return;
+        }
+        cell.querySelector('.progress-status').textContent = progress.step;
+        if (progress.filesTotal !== null) {
+            const percent = progress.filesTotal === 0 ? 100 : Math.min(100, 100 * progress.filesDone / progress.filesTotal);
+            bar.classList.remove('d-none');
+            bar.querySelector('.progress-bar').style.width = `${percent}%`;
+            detail.textContent = `${progress.filesDone}/${progress.filesTotal} files, `
+                + `${progress.filesPerSecond.toFixed(1)} files/s${formatEta(progress.etaSeconds)}`;
+        } else if (progress.filesDone > 0) {
+            detail.textContent = `${progress.filesDone} read, ${progress.filesPerSecond.toFixed(1)}/s`;
+        }
+    });
+})();
@@ -0,0 +1,26 @@
+// Loads the methods of a class of the project view when its row is expanded, and hides them when collapsed.
+(function () {
+    document.querySelectorAll('.methods-toggle').forEach(function (toggle) {
+        toggle.addEventListener('click', async function () {
+            const row = toggle.closest('tr');
+            const icon = toggle.querySelector('i');
+            const methodRows = [];
+            for (let next = row.nextElementSibling; next && next.classList.contains('method-row'); next = next.nextElementSibling) {
+                methodRows.push(next);
+            }
+            if (methodRows.length > 0) {
+                methodRows.forEach(function (methodRow) {
+                    methodRow.remove();
+                });
+                icon.classList.replace('bi-caret-down', 'bi-caret-right');
+                return;
+            }
+            const response = await fetch(row.dataset.methodsUrl);
+            if (!response.ok) {
+                return;
+            }
+            row.insertAdjacentHTML('afterend', await response.text());
+            icon.classList.replace('bi-caret-right', 'bi-caret-down');
+        });
+    });
+})();
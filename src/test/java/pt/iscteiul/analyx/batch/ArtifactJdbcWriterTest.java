@@ -0,0 +1,123 @@
+package pt.iscteiul.analyx.batch;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.Chunk;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import pt.iscteiul.analyx.entity.ClassArtifact;
+import pt.iscteiul.analyx.entity.MethodArtifact;
+import pt.iscteiul.analyx.entity.Project;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({ArtifactJdbcWriter.class, ArtifactIdAllocator.class, AnalysisMetrics.class})
+@TestPropertySource(properties = "analyx.artifact-id-block-size=3")
+class ArtifactJdbcWriterTest {
+	private static final int PROJECT = 1;
+
+	@TestConfiguration
+	static class Beans {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired
+	private ArtifactJdbcWriter artifactJdbcWriter;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final Project project = new Project();
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.update("insert into user (id_user, name, email, password) values (?, 'user', 'user@analyx.pt', 'secret')",
+				PROJECT);
+		jdbcTemplate.update("""
+				insert into project (id_project, name, id_user, status_analysis, generated_date, description)
+				values (?, 'project', ?, 1, ?, '')
+				""", PROJECT, PROJECT, LocalDateTime.now());
+		project.setId(PROJECT);
+	}
+
+	@Test
+	void everyChunkGetsFreshIdsAndTheMethodsReferenceTheirClass() throws Exception {
+		int firstFree = nextVal();
+
+		// 2 ids out of a block of 3, then 4 ids that do not fit the one left
+		artifactJdbcWriter.write(new Chunk<>(classArtifact("A", 1)));
+		artifactJdbcWriter.write(new Chunk<>(classArtifact("B", 2), classArtifact("C", 0)));
+
+		List<Map<String, Object>> artifacts = jdbcTemplate.queryForList("""
+				select a.id_artifact, a.name, m.id_class_artifact from artifact a
+				left join method_artifact m on m.id_method_artifact = a.id_artifact
+				where a.id_project = ?
+				order by a.id_artifact
+				""", PROJECT);
+		assertThat(artifacts).extracting(row -> ((Number) row.get("id_artifact")).intValue())
+				.containsExactly(firstFree, firstFree + 1, firstFree + 3, firstFree + 4, firstFree + 5, firstFree + 6);
+		assertThat(nextVal()).isEqualTo(firstFree + 7);
+
+		Map<String, Integer> classIds = new HashMap<>();
+		artifacts.stream()
+				.filter(row -> row.get("id_class_artifact") == null)
+				.forEach(row -> classIds.put((String) row.get("name"), ((Number) row.get("id_artifact")).intValue()));
+		assertThat(artifacts)
+				.filteredOn(row -> row.get("id_class_artifact") != null)
+				.extracting(row -> row.get("name"), row -> ((Number) row.get("id_class_artifact")).intValue())
+				.containsExactly(
+						tuple("A.method0()", classIds.get("A")),
+						tuple("B.method0()", classIds.get("B")),
+						tuple("B.method1()", classIds.get("B")));
+		assertThat(jdbcTemplate.queryForObject("select method_count from class_artifact where id_class_artifact = ?",
+				Integer.class, classIds.get("B"))).isEqualTo(2);
+	}
+
+	private int nextVal() {
+		return jdbcTemplate.queryForObject("select next_val from artifact_sequence", Integer.class);
+	}
+
+	private ClassArtifact classArtifact(String name, int methods) {
+		ClassArtifact classArtifact = new ClassArtifact();
+		classArtifact.setName(name);
+		classArtifact.setLinesCode(10);
+		classArtifact.setProject(project);
+		classArtifact.setNumberAttributes(0);
+		classArtifact.setDit(1);
+		classArtifact.setCbo(0);
+		classArtifact.setNoc(0);
+		List<MethodArtifact> methodArtifacts = new ArrayList<>();
+		IntStream.range(0, methods).forEach(i -> {
+			MethodArtifact methodArtifact = new MethodArtifact();
+			methodArtifact.setName(name + ".method" + i + "()");
+			methodArtifact.setLinesCode(3);
+			methodArtifact.setProject(project);
+			methodArtifact.setCyclomaticComplexity(1);
+			methodArtifact.setClassArtifact(classArtifact);
+			methodArtifacts.add(methodArtifact);
+		});
+		classArtifact.setMethodsArtifact(methodArtifacts);
+		return classArtifact;
+	}
+}
@@ -0,0 +1,131 @@
+package pt.iscteiul.analyx.batch;
+
+import com.github.mauricioaniche.ck.CKClassResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.iscteiul.analyx.entity.SkipReason;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class GuardedCKParserTest {
+	private static final String SOURCE = """
+			package a;
+
+			class A {
+				int run(int x) {
+					if (x > 0) {
+						return x;
+					}
+					return -x;
+				}
+			}
+			""";
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private GuardedCKParser parser;
+
+	@AfterEach
+	void tearDown() {
+		parser.stop();
+	}
+
+	@Test
+	void parsesTheContentGiven() throws Exception {
+		start(60000, 1024, 100);
+
+		List<CKClassResult> results = parser.parse("src/a/A.java", bytes(SOURCE));
+
+		assertThat(results).singleElement().satisfies(result -> {
+			assertThat(result.getClassName()).isEqualTo("a.A");
+			assertThat(result.getFile()).isEqualTo("src/a/A.java");
+			assertThat(result.getWmc()).isEqualTo(2);
+		});
+	}
+
+	@Test
+	void skipsFilesOverTheByteLimitUnparsed() {
+		start(60000, SOURCE.length() - 1, 100);
+
+		FileSkippedException skipped = catchThrowableOfType(FileSkippedException.class,
+				() -> parser.parse("src/a/A.java", bytes(SOURCE)));
+
+		assertThat(skipped.getReason()).isEqualTo(SkipReason.TOO_LARGE);
+		assertThat(skipped).hasMessageContaining("bytes");
+		assertThat(skippedCount(SkipReason.TOO_LARGE)).isEqualTo(1);
+	}
+
+	@Test
+	void skipsFilesOverTheLineLimitUnparsed() {
+		start(60000, 1024, 5);
+
+		FileSkippedException skipped = catchThrowableOfType(FileSkippedException.class,
+				() -> parser.parse("src/a/A.java", bytes(SOURCE)));
+
+		assertThat(skipped.getReason()).isEqualTo(SkipReason.TOO_LARGE);
+		assertThat(skipped).hasMessageContaining("lines");
+	}
+
+	@Test
+	void aParsePastItsDeadlineIsSkippedAndGivesItsThreadBack() throws Exception {
+		start(0, 1024, 100);
+
+		FileSkippedException skipped = catchThrowableOfType(FileSkippedException.class,
+				() -> parser.parse("src/a/A.java", bytes(SOURCE)));
+
+		assertThat(skipped.getReason()).isEqualTo(SkipReason.TIMEOUT);
+		assertThat(skippedCount(SkipReason.TIMEOUT)).isEqualTo(1);
+		// the only parser thread is free again once the abandoned parse ends
+		ReflectionTestUtils.setField(parser, "timeoutMs", 60000L);
+		assertThat(parser.parse("src/a/A.java", bytes(SOURCE))).hasSize(1);
+	}
+
+	@Test
+	void aFileNestedTooDeepForTheStackIsSkipped() throws Exception {
+		start(60000, Long.MAX_VALUE, Long.MAX_VALUE, 256);
+		int depth = 20_000;
+		String nested = "class Deep { void run() { " + "{".repeat(depth) + "}".repeat(depth) + " } }";
+
+		FileSkippedException skipped = catchThrowableOfType(FileSkippedException.class,
+				() -> parser.parse("src/Deep.java", bytes(nested)));
+
+		assertThat(skipped.getReason()).isEqualTo(SkipReason.TOO_DEEP);
+		assertThat(skipped).hasCauseInstanceOf(StackOverflowError.class);
+		// the thread that overflowed parses the next file
+		assertThat(parser.parse("src/a/A.java", bytes(SOURCE))).hasSize(1);
+	}
+
+	private void start(long timeoutMs, long maxFileBytes, long maxFileLines) {
+		start(timeoutMs, maxFileBytes, maxFileLines, 4096);
+	}
+
+	private void start(long timeoutMs, long maxFileBytes, long maxFileLines, long threadStackKb) {
+		AnalysisMetrics analysisMetrics = new AnalysisMetrics();
+		ReflectionTestUtils.setField(analysisMetrics, "meterRegistry", meterRegistry);
+		parser = new GuardedCKParser();
+		ReflectionTestUtils.setField(parser, "analysisMetrics", analysisMetrics);
+		ReflectionTestUtils.setField(parser, "timeoutMs", timeoutMs);
+		ReflectionTestUtils.setField(parser, "maxFileBytes", maxFileBytes);
+		ReflectionTestUtils.setField(parser, "maxFileLines", maxFileLines);
+		ReflectionTestUtils.setField(parser, "largeFileBytes", Long.MAX_VALUE);
+		ReflectionTestUtils.setField(parser, "maxLargeParses", 1);
+		ReflectionTestUtils.setField(parser, "maxThreads", 1);
+		ReflectionTestUtils.setField(parser, "threadStackKb", threadStackKb);
+		parser.start();
+	}
+
+	private double skippedCount(SkipReason reason) {
+		return meterRegistry.counter("analyx.ck.skipped", "reason", reason.name().toLowerCase()).count();
+	}
+
+	private static byte[] bytes(String content) {
+		return content.getBytes(StandardCharsets.UTF_8);
+	}
+}
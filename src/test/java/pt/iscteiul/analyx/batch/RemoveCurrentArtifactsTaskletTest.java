@@ -0,0 +1,129 @@
+package pt.iscteiul.analyx.batch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.iscteiul.analyx.entity.Project;
+import pt.iscteiul.analyx.entity.SourceFile;
+import pt.iscteiul.analyx.service.ArtifactService;
+import pt.iscteiul.analyx.service.ProjectService;
+import pt.iscteiul.analyx.service.WorkspaceService;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RemoveCurrentArtifactsTaskletTest {
+	private static final long ID_PROJECT = 7;
+
+	@TempDir
+	private Path projectFolder;
+
+	private final Project project = new Project();
+
+	private final ArtifactService artifactService = mock(ArtifactService.class);
+
+	private final ChunkedArtifactDeletion chunkedArtifactDeletion = mock(ChunkedArtifactDeletion.class);
+
+	private final ProjectFileScanner projectFileScanner = new ProjectFileScanner();
+
+	private final RemoveCurrentArtifactsTasklet tasklet = new RemoveCurrentArtifactsTasklet();
+
+	@BeforeEach
+	void setUp() {
+		project.setId((int) ID_PROJECT);
+		WorkspaceService workspaceService = mock(WorkspaceService.class);
+		when(workspaceService.getProjectFolder(project)).thenReturn(projectFolder);
+		ProjectService projectService = mock(ProjectService.class);
+		when(projectService.getProjectById(ID_PROJECT)).thenReturn(project);
+
+		ReflectionTestUtils.setField(projectFileScanner, "workspaceService", workspaceService);
+		ReflectionTestUtils.setField(projectFileScanner, "artifactService", artifactService);
+		ReflectionTestUtils.setField(projectFileScanner, "readFromZip", false);
+		ReflectionTestUtils.setField(projectFileScanner, "analysisMode", AnalysisMode.FILE);
+		ReflectionTestUtils.setField(tasklet, "artifactService", artifactService);
+		ReflectionTestUtils.setField(tasklet, "projectService", projectService);
+		ReflectionTestUtils.setField(tasklet, "projectFileScanner", projectFileScanner);
+		ReflectionTestUtils.setField(tasklet, "chunkedArtifactDeletion", chunkedArtifactDeletion);
+		ReflectionTestUtils.setField(tasklet, "analysisMode", AnalysisMode.FILE);
+	}
+
+	@Test
+	void onlyChangedAndRemovedSourceFilesAreStale() throws Exception {
+		write("src/Unchanged.java", "class Unchanged {}");
+		write("src/Changed.java", "class Changed { int field; }");
+		write("src/Added.java", "class Added {}");
+		when(artifactService.findSourceFiles(project)).thenReturn(List.of(
+				sourceFile(1, "src/Unchanged.java", "class Unchanged {}"),
+				sourceFile(2, "src/Changed.java", "class Changed {}"),
+				sourceFile(3, "src/Removed.java", "class Removed {}")));
+		List<List<Integer>> staleSeen = new ArrayList<>();
+		when(chunkedArtifactDeletion.deleteNextStaleChunk(eq(project.getId()), any(), any())).thenAnswer(invocation -> {
+			Deque<Integer> stale = invocation.getArgument(1);
+			staleSeen.add(List.copyOf(stale));
+			stale.clear();
+			return RepeatStatus.CONTINUABLE;
+		});
+
+		ChunkContext chunkContext = chunkContext();
+		tasklet.execute(null, chunkContext);
+		tasklet.execute(null, chunkContext);
+
+		assertThat(staleSeen).containsExactly(List.of(2, 3), List.of());
+		// found once per execution, the queue is drained across the chunks
+		verify(artifactService, times(1)).findSourceFiles(project);
+	}
+
+	@Test
+	void sameContentIsNotStale() throws Exception {
+		write("Same.java", "class Same {}");
+		when(artifactService.findSourceFiles(project)).thenReturn(List.of(sourceFile(1, "Same.java", "class Same {}")));
+		when(chunkedArtifactDeletion.deleteNextStaleChunk(eq(project.getId()), any(), any())).thenReturn(RepeatStatus.FINISHED);
+
+		tasklet.execute(null, chunkContext());
+
+		verify(chunkedArtifactDeletion).deleteNextStaleChunk(eq(project.getId()),
+				argThat(Deque::isEmpty), any());
+	}
+
+	private void write(String path, String content) throws Exception {
+		Path file = projectFolder.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content);
+	}
+
+	private SourceFile sourceFile(int id, String path, String analyzedContent) {
+		SourceFile sourceFile = new SourceFile();
+		sourceFile.setId(id);
+		sourceFile.setProject(project);
+		sourceFile.setPath(path);
+		sourceFile.setSha256(projectFileScanner.sha256(analyzedContent.getBytes(StandardCharsets.UTF_8)));
+		return sourceFile;
+	}
+
+	private static ChunkContext chunkContext() {
+		JobExecution jobExecution = new JobExecution(new JobInstance(1L, "jobProcessProjectRestart"), 1L,
+				new JobParametersBuilder().addLong(BatchConstants.PARAM_ID_PROJECT, ID_PROJECT).toJobParameters());
+		return new ChunkContext(new StepContext(new StepExecution("stepRemoveCurrentArtifacts", jobExecution, 1L)));
+	}
+}
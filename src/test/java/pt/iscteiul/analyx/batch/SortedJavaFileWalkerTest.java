@@ -0,0 +1,77 @@
+package pt.iscteiul.analyx.batch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SortedJavaFileWalkerTest {
+	private static final List<String> ALL = List.of(
+			"a/A.java",
+			"a/b/B.java",
+			"a/b/C.java",
+			"a/c/D.java",
+			"b.java",
+			"z/E.java");
+
+	@TempDir
+	private Path root;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		for (String path : ALL) {
+			write(path);
+		}
+		write("a/b/readme.txt");
+		Files.createDirectories(root.resolve("empty"));
+	}
+
+	@Test
+	void walksTheJavaFilesDepthFirstByName() {
+		assertThat(walk(null)).containsExactlyElementsOf(ALL);
+	}
+
+	@Test
+	void resumesAfterTheLastReadPath() {
+		for (int read = 0; read < ALL.size(); read++) {
+			assertThat(walk(ALL.get(read))).containsExactlyElementsOf(ALL.subList(read + 1, ALL.size()));
+		}
+	}
+
+	@Test
+	void resumesAfterAPathThatIsGone() throws Exception {
+		// the last read file was removed before the restart, the walk goes on with what comes after it
+		assertThat(walk("a/b/Bb.java")).containsExactly("a/b/C.java", "a/c/D.java", "b.java", "z/E.java");
+		assertThat(walk("a/bb/X.java")).containsExactly("a/c/D.java", "b.java", "z/E.java");
+		assertThat(walk("y/X.java")).containsExactly("z/E.java");
+	}
+
+	@Test
+	void endsAfterTheLastFile() {
+		SortedJavaFileWalker walker = new SortedJavaFileWalker(root, "z/E.java");
+
+		assertThat(walker.hasNext()).isFalse();
+		assertThatThrownBy(walker::next).isInstanceOf(NoSuchElementException.class);
+	}
+
+	private List<String> walk(String resumeAfter) {
+		List<String> paths = new ArrayList<>();
+		new SortedJavaFileWalker(root, resumeAfter)
+				.forEachRemaining(file -> paths.add(root.relativize(file.path()).toString().replace(root.getFileSystem().getSeparator(), "/")));
+		return paths;
+	}
+
+	private void write(String path) throws Exception {
+		Path file = root.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, "class X {}");
+	}
+}
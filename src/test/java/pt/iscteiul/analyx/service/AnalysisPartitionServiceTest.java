@@ -0,0 +1,76 @@
+package pt.iscteiul.analyx.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import pt.iscteiul.analyx.service.AnalysisPartitionService.ClaimedPartition;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(AnalysisPartitionService.class)
+class AnalysisPartitionServiceTest {
+	private static final long JOB_EXECUTION = 1;
+	private static final String WORKER = "node-a";
+
+	@Autowired
+	private AnalysisPartitionService analysisPartitionService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void aPartitionExpiresWhenItsHeartbeatIsOlderThanTheLeaseByTheDatabaseClock() {
+		analysisPartitionService.create(JOB_EXECUTION, List.of(stepExecution(11), stepExecution(12)));
+		ClaimedPartition first = analysisPartitionService.claimNext(WORKER).orElseThrow();
+		ClaimedPartition second = analysisPartitionService.claimNext(WORKER).orElseThrow();
+		assertThat(analysisPartitionService.claimNext(WORKER)).isEmpty();
+
+		jdbcTemplate.update("""
+				update analysis_partition set heartbeat_date = timestampadd(minute, -2, now())
+				where id_analysis_partition = ?
+				""", first.id());
+
+		assertThat(analysisPartitionService.expire(JOB_EXECUTION, Duration.ofMinutes(1))).containsExactly(11L);
+		// the expired partition is no longer the worker's, the other one still is
+		assertThat(analysisPartitionService.heartbeat(WORKER, Set.of(first.id(), second.id()))).containsExactly(first.id());
+		assertThat(analysisPartitionService.countUnfinished(JOB_EXECUTION)).isEqualTo(1);
+	}
+
+	@Test
+	void theLeftoverPartitionsOfAProjectAreDeletedWithIt() {
+		// the Spring Batch tables are not part of the test schema, only the parameters are read
+		jdbcTemplate.execute("""
+				create table if not exists BATCH_JOB_EXECUTION_PARAMS (
+					JOB_EXECUTION_ID BIGINT NOT NULL,
+					PARAMETER_NAME VARCHAR(100) NOT NULL,
+					PARAMETER_TYPE VARCHAR(100) NOT NULL,
+					PARAMETER_VALUE VARCHAR(2500),
+					IDENTIFYING CHAR(1) NOT NULL
+				)
+				""");
+		jdbcTemplate.update("insert into BATCH_JOB_EXECUTION_PARAMS values (?, 'idProject', 'java.lang.Long', '7', 'Y')", JOB_EXECUTION);
+		jdbcTemplate.update("insert into BATCH_JOB_EXECUTION_PARAMS values (?, 'idProject', 'java.lang.Long', '8', 'Y')", JOB_EXECUTION + 1);
+		analysisPartitionService.create(JOB_EXECUTION, List.of(stepExecution(11)));
+		analysisPartitionService.create(JOB_EXECUTION + 1, List.of(stepExecution(21)));
+
+		analysisPartitionService.deleteByProject(7);
+
+		assertThat(analysisPartitionService.countUnfinished(JOB_EXECUTION)).isZero();
+		assertThat(analysisPartitionService.countUnfinished(JOB_EXECUTION + 1)).isEqualTo(1);
+	}
+
+	private static StepExecution stepExecution(long id) {
+		return new StepExecution("stepReadProjectFilesPartition" + id, new JobExecution(JOB_EXECUTION), id);
+	}
+}
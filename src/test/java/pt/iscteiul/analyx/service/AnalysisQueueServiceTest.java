@@ -0,0 +1,139 @@
+package pt.iscteiul.analyx.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import pt.iscteiul.analyx.entity.QueueStatus;
+import pt.iscteiul.analyx.entity.QueuedJob;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static pt.iscteiul.analyx.batch.BatchConstants.JOB_PROCESS_PROJECT;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(AnalysisQueueService.class)
+class AnalysisQueueServiceTest {
+	private static final int PROJECT = 1;
+	private static final String NODE_A = "node-a";
+	private static final String NODE_B = "node-b";
+	private static final long LEASE_MS = 60_000;
+
+	@Autowired
+	private AnalysisQueueService analysisQueueService;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@MockitoBean
+	private WorkspaceService workspaceService;
+
+	private QueuedJob queuedJob;
+
+	@BeforeEach
+	void setUp() {
+		new ArtifactRows(jdbcTemplate).project(PROJECT);
+		// no zip uploaded, the smallest analysis priority
+		when(workspaceService.getProjectZipFile(any())).thenReturn(Path.of("missing.zip"));
+		queuedJob = analysisQueueService.enqueue(PROJECT, JOB_PROCESS_PROJECT);
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void aQueuedJobIsClaimedOnce() {
+		assertThat(analysisQueueService.claim(queuedJob, NODE_A, LEASE_MS)).hasValueSatisfying(claimed -> {
+			assertThat(claimed.getStatus()).isEqualTo(QueueStatus.RUNNING);
+			assertThat(claimed.getWorker()).isEqualTo(NODE_A);
+			assertThat(claimed.getLeaseToken()).isNotNull();
+		});
+		entityManager.flush();
+		entityManager.clear();
+
+		assertThat(analysisQueueService.claim(queuedJob, NODE_B, LEASE_MS)).isEmpty();
+		assertThat(row()).containsEntry("worker", NODE_A);
+	}
+
+	@Test
+	void theLeaseRunsOnTheDatabaseClock() {
+		analysisQueueService.claim(queuedJob, NODE_A, LEASE_MS);
+		entityManager.flush();
+
+		Boolean live = jdbcTemplate.queryForObject("""
+				select lease_until > timestampadd(second, 50, now()) from queued_job where id_queued_job = ?
+				""", Boolean.class, queuedJob.getId());
+		assertThat(live).isTrue();
+	}
+
+	@Test
+	void anExpiredLeaseIsTakenOverByAnotherNode() {
+		QueuedJob claimedByA = analysisQueueService.claim(queuedJob, NODE_A, LEASE_MS).orElseThrow();
+		entityManager.flush();
+		entityManager.clear();
+		expireLease();
+
+		assertThat(analysisQueueService.requeueAbandoned(NODE_B, job -> false)).isEqualTo(1);
+		entityManager.flush();
+		entityManager.clear();
+		QueuedJob claimedByB = analysisQueueService.claim(queuedJob, NODE_B, LEASE_MS).orElseThrow();
+		entityManager.flush();
+		entityManager.clear();
+
+		// A finds out it lost the job when it renews its lease, and can no longer remove it
+		assertThat(analysisQueueService.renewLeases(List.of(claimedByA.getLeaseToken()), LEASE_MS)).isEmpty();
+		assertThat(analysisQueueService.renewLeases(List.of(claimedByB.getLeaseToken()), LEASE_MS))
+				.containsExactly(claimedByB.getLeaseToken());
+		analysisQueueService.remove(claimedByA);
+		assertThat(row()).containsEntry("worker", NODE_B);
+
+		analysisQueueService.remove(claimedByB);
+		assertThat(analysisQueueService.countRunning()).isZero();
+	}
+
+	@Test
+	void anAbandonedJobThatCompletedIsRemovedInsteadOfQueuedAgain() {
+		analysisQueueService.claim(queuedJob, NODE_A, LEASE_MS);
+		entityManager.flush();
+		entityManager.clear();
+		expireLease();
+
+		assertThat(analysisQueueService.requeueAbandoned(NODE_B, job -> true)).isZero();
+		entityManager.flush();
+		assertThat(analysisQueueService.countRunning() + analysisQueueService.countQueued()).isZero();
+	}
+
+	@Test
+	void aLiveLeaseOfAnotherNodeIsNotRequeued() {
+		analysisQueueService.claim(queuedJob, NODE_A, LEASE_MS);
+		entityManager.flush();
+
+		assertThat(analysisQueueService.requeueAbandoned(NODE_B, job -> false)).isZero();
+		// but a restarted A gives back what it held before
+		assertThat(analysisQueueService.requeueAbandoned(NODE_A, job -> false)).isEqualTo(1);
+		entityManager.flush();
+		assertThat(row()).containsEntry("worker", null);
+	}
+
+	private void expireLease() {
+		jdbcTemplate.update("update queued_job set lease_until = timestampadd(minute, -1, now()) where id_queued_job = ?",
+				queuedJob.getId());
+	}
+
+	private Map<String, Object> row() {
+		return jdbcTemplate.queryForMap("select worker from queued_job where id_queued_job = ?", queuedJob.getId());
+	}
+}
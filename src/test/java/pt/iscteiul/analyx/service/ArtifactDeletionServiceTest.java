@@ -0,0 +1,120 @@
+package pt.iscteiul.analyx.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import pt.iscteiul.analyx.service.ArtifactDeletionService.Cursor;
+import pt.iscteiul.analyx.service.ArtifactDeletionService.Phase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(ArtifactDeletionService.class)
+class ArtifactDeletionServiceTest {
+	private static final int PROJECT = 1;
+	private static final int OTHER_PROJECT = 2;
+	private static final int CHUNK_SIZE = 4;
+
+	@Autowired
+	private ArtifactDeletionService artifactDeletionService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private ArtifactRows rows;
+
+	@BeforeEach
+	void setUp() {
+		rows = new ArtifactRows(jdbcTemplate);
+		rows.project(PROJECT);
+		rows.project(OTHER_PROJECT);
+		// artifact ids 10 to 32 in the project, each class followed by its two methods
+		for (int sourceFile = 1; sourceFile <= 3; sourceFile++) {
+			int idClass = sourceFile * 10;
+			rows.sourceFile(sourceFile, PROJECT, "src/Class" + sourceFile + ".java");
+			rows.classArtifact(idClass, PROJECT, sourceFile);
+			rows.methodArtifact(idClass + 1, PROJECT, idClass);
+			rows.methodArtifact(idClass + 2, PROJECT, idClass);
+		}
+		rows.skippedFile(2, PROJECT);
+		rows.sourceFile(4, OTHER_PROJECT, "src/Class4.java");
+		rows.classArtifact(40, OTHER_PROJECT, 4);
+		rows.methodArtifact(41, OTHER_PROJECT, 40);
+		// analyzed before source files were tracked
+		rows.classArtifact(50, OTHER_PROJECT, null);
+	}
+
+	@Test
+	void deletesTheProjectInKeyRangesPhaseByPhase() {
+		List<Cursor> cursors = new ArrayList<>();
+		Cursor cursor = Cursor.START;
+		while (!Phase.FINISHED.equals(cursor.phase())) {
+			cursor = artifactDeletionService.deleteNextChunk(PROJECT, cursor, CHUNK_SIZE);
+			cursors.add(cursor);
+			if (new Cursor(Phase.CLASSES, 0).equals(cursor)) {
+				assertThat(rows.countMethods(PROJECT)).isZero();
+				assertThat(rows.count("class_artifact", PROJECT)).isEqualTo(3);
+			}
+		}
+
+		// chunks end at the 4th artifact id after the previous one: 10 11 12 20 | 21 22 30 31 | 32
+		assertThat(cursors).containsExactly(
+				new Cursor(Phase.METHODS, 20), new Cursor(Phase.METHODS, 31), new Cursor(Phase.METHODS, 32),
+				new Cursor(Phase.CLASSES, 0),
+				new Cursor(Phase.CLASSES, 20), new Cursor(Phase.CLASSES, 31), new Cursor(Phase.CLASSES, 32),
+				new Cursor(Phase.SOURCE_FILES, 0),
+				new Cursor(Phase.SOURCE_FILES, 3),
+				new Cursor(Phase.FINISHED, 0));
+		assertThat(rows.count("artifact", PROJECT)).isZero();
+		assertThat(rows.count("skipped_file", PROJECT)).isZero();
+		assertThat(rows.count("source_file", PROJECT)).isZero();
+		assertThat(rows.count("artifact", OTHER_PROJECT)).isEqualTo(3);
+		assertThat(rows.count("source_file", OTHER_PROJECT)).isEqualTo(1);
+	}
+
+	@Test
+	void aRestartedDeletionCarriesOnFromItsCursor() {
+		Cursor cursor = artifactDeletionService.deleteNextChunk(PROJECT, Cursor.START, CHUNK_SIZE);
+
+		assertThat(artifactDeletionService.deleteNextChunk(PROJECT, cursor, CHUNK_SIZE)).isEqualTo(new Cursor(Phase.METHODS, 31));
+		assertThat(rows.countMethods(PROJECT)).isEqualTo(1);
+	}
+
+	@Test
+	void deletesOnlyTheArtifactsOfDetachedSourceFiles() {
+		rows.classArtifact(60, PROJECT, null);
+		rows.methodArtifact(61, PROJECT, 60);
+
+		artifactDeletionService.detachSourceFiles(PROJECT, List.of(2));
+		Cursor cursor = Cursor.START;
+		int chunks = 0;
+		while (!Phase.FINISHED.equals(cursor.phase())) {
+			cursor = artifactDeletionService.deleteNextDetachedChunk(PROJECT, cursor, CHUNK_SIZE);
+			chunks++;
+		}
+
+		// the same three ranges of 11 artifact ids for the methods and for the classes, then the end of each phase
+		assertThat(chunks).isEqualTo(8);
+		assertThat(jdbcTemplate.queryForList("select id_artifact from artifact where id_project = ? order by id_artifact",
+				Integer.class, PROJECT)).containsExactly(10, 11, 12, 30, 31, 32);
+		assertThat(jdbcTemplate.queryForList("select id_source_file from source_file where id_project = ? order by id_source_file",
+				Integer.class, PROJECT)).containsExactly(1, 3);
+		assertThat(rows.count("skipped_file", PROJECT)).isZero();
+		assertThat(rows.count("artifact", OTHER_PROJECT)).isEqualTo(3);
+	}
+
+	@Test
+	void nothingDetachedFinishesAtOnce() {
+		assertThat(artifactDeletionService.deleteNextDetachedChunk(PROJECT, Cursor.START, CHUNK_SIZE))
+				.isEqualTo(new Cursor(Phase.FINISHED, 0));
+		assertThat(rows.count("artifact", PROJECT)).isEqualTo(9);
+	}
+}
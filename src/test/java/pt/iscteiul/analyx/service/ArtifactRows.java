@@ -0,0 +1,78 @@
+package pt.iscteiul.analyx.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Rows of the tables the services read with SQL, inserted with chosen ids the way the batch writes them.
+ */
+class ArtifactRows {
+	private final JdbcTemplate jdbcTemplate;
+
+	ArtifactRows(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	void project(int idProject) {
+		jdbcTemplate.update("insert into user (id_user, name, email, password) values (?, ?, ?, ?)",
+				idProject, "user" + idProject, "user" + idProject + "@analyx.pt", "secret");
+		jdbcTemplate.update("""
+				insert into project (id_project, name, id_user, status_analysis, generated_date, description)
+				values (?, ?, ?, 3, ?, '')
+				""", idProject, "project" + idProject, idProject, LocalDateTime.now());
+	}
+
+	void sourceFile(int idSourceFile, int idProject, String path) {
+		jdbcTemplate.update("insert into source_file (id_source_file, path, sha256, id_project) values (?, ?, ?, ?)",
+				idSourceFile, path, "0".repeat(64), idProject);
+	}
+
+	void skippedFile(int idSourceFile, int idProject) {
+		jdbcTemplate.update("""
+				insert into skipped_file (id_source_file, id_project, reason, detail, skipped_date)
+				values (?, ?, 0, 'skipped', ?)
+				""", idSourceFile, idProject, LocalDateTime.now());
+	}
+
+	void classArtifact(int id, int idProject, Integer idSourceFile, String name, int linesCode, int cbo, int dit,
+					   int complexity) {
+		jdbcTemplate.update("insert into artifact (id_artifact, name, lines_code, id_project) values (?, ?, ?, ?)",
+				id, name, linesCode, idProject);
+		jdbcTemplate.update("""
+				insert into class_artifact (id_class_artifact, number_attributes, dit, cbo, noc, fan_in, fan_out, id_project,
+					method_count, lines_code, complexity, id_source_file)
+				values (?, 2, ?, ?, 0, 1, 3, ?, 0, ?, ?, ?)
+				""", id, dit, cbo, idProject, linesCode, complexity, idSourceFile);
+	}
+
+	void classArtifact(int id, int idProject, Integer idSourceFile) {
+		classArtifact(id, idProject, idSourceFile, "Class" + id, 10, 0, 1, 0);
+	}
+
+	void methodArtifact(int id, int idProject, int idClassArtifact, String name, int linesCode, int complexity) {
+		jdbcTemplate.update("insert into artifact (id_artifact, name, lines_code, id_project) values (?, ?, ?, ?)",
+				id, name, linesCode, idProject);
+		jdbcTemplate.update("insert into method_artifact (id_method_artifact, cyclomatic_complexity, id_class_artifact) values (?, ?, ?)",
+				id, complexity, idClassArtifact);
+		jdbcTemplate.update("""
+				update class_artifact set method_count = method_count + 1, complexity = complexity + ?
+				where id_class_artifact = ?
+				""", complexity, idClassArtifact);
+	}
+
+	void methodArtifact(int id, int idProject, int idClassArtifact) {
+		methodArtifact(id, idProject, idClassArtifact, "method" + id + "()", 3, 1);
+	}
+
+	long count(String table, int idProject) {
+		return jdbcTemplate.queryForObject("select count(*) from %s where id_project = ?".formatted(table), Long.class, idProject);
+	}
+
+	long countMethods(int idProject) {
+		return jdbcTemplate.queryForObject("""
+				select count(*) from method_artifact m inner join artifact a on a.id_artifact = m.id_method_artifact
+				where a.id_project = ?
+				""", Long.class, idProject);
+	}
+}
@@ -0,0 +1,108 @@
+package pt.iscteiul.analyx.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Window;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import pt.iscteiul.analyx.dto.ClassPageDTO;
+import pt.iscteiul.analyx.dto.ClassSort;
+import pt.iscteiul.analyx.entity.ClassArtifact;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(ArtifactService.class)
+class ArtifactServiceTest {
+	private static final int PROJECT = 1;
+	private static final int OTHER_PROJECT = 2;
+
+	@Autowired
+	private ArtifactService artifactService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@MockitoBean
+	private ProjectSummaryService projectSummaryService;
+
+	@BeforeEach
+	void setUp() {
+		ArtifactRows rows = new ArtifactRows(jdbcTemplate);
+		rows.project(PROJECT);
+		rows.project(OTHER_PROJECT);
+		int[] linesCode = {30, 10, 30, 20, 10, 30, 5};
+		for (int i = 0; i < linesCode.length; i++) {
+			int id = i + 1;
+			rows.classArtifact(id, PROJECT, null, "Class" + id, linesCode[i], id % 3, 1, id * 2);
+		}
+		rows.classArtifact(8, OTHER_PROJECT, null, "Class8", 40, 0, 1, 0);
+	}
+
+	@Test
+	void pagesByLinesOfCodeWithTiesInIdOrder() {
+		assertThat(ids(pages(ClassSort.LOC, true, null))).containsExactly(6, 3, 1, 4, 5, 2, 7);
+		assertThat(ids(pages(ClassSort.LOC, false, null))).containsExactly(7, 2, 5, 4, 1, 3, 6);
+	}
+
+	@Test
+	void pagesById() {
+		assertThat(ids(pages(ClassSort.ID, false, null))).containsExactly(1, 2, 3, 4, 5, 6, 7);
+		assertThat(ids(pages(ClassSort.ID, true, null))).containsExactly(7, 6, 5, 4, 3, 2, 1);
+	}
+
+	@Test
+	void pagesOnlyTheClassesOverTheMinimums() {
+		assertThat(ids(pages(ClassSort.LOC, true, 20))).containsExactly(6, 3, 1, 4);
+		assertThat(ids(pages(ClassSort.COMPLEXITY, false, 20))).containsExactly(1, 3, 4, 6);
+	}
+
+	@Test
+	void theLastPageHasNothingAfterIt() {
+		Window<ClassArtifact> page = artifactService.findClassPage(PROJECT,
+				new ClassPageDTO(ClassSort.LOC, true, null, null, null, null, 10, 5, 2));
+
+		assertThat(page.getContent()).extracting(ClassArtifact::getId).containsExactly(2, 7);
+		assertThat(page.hasNext()).isFalse();
+	}
+
+	/**
+	 * Every page of two classes read after the last class of the previous one, as the project view does.
+	 */
+	private List<List<ClassArtifact>> pages(ClassSort sort, boolean desc, Integer minLoc) {
+		List<List<ClassArtifact>> pages = new ArrayList<>();
+		Integer afterValue = null;
+		Integer afterId = null;
+		Window<ClassArtifact> page;
+		do {
+			page = artifactService.findClassPage(PROJECT,
+					new ClassPageDTO(sort, desc, minLoc, null, null, null, afterValue, afterId, 2));
+			assertThat(page.size()).isLessThanOrEqualTo(2);
+			pages.add(page.getContent());
+			if (!page.isEmpty()) {
+				ClassArtifact last = page.getContent().getLast();
+				afterValue = switch (sort) {
+					case ID -> null;
+					case LOC -> last.getClassLinesCode();
+					case CBO -> last.getCbo();
+					case DIT -> last.getDit();
+					case COMPLEXITY -> last.getComplexity();
+				};
+				afterId = last.getId();
+			}
+		} while (page.hasNext());
+		return pages;
+	}
+
+	private static List<Integer> ids(List<List<ClassArtifact>> pages) {
+		return pages.stream().flatMap(List::stream).map(ClassArtifact::getId).toList();
+	}
+}
@@ -0,0 +1,135 @@
+package pt.iscteiul.analyx.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(ExportService.class)
+@TestPropertySource(properties = "analyx.export.arrow-batch-rows=2")
+class ExportServiceTest {
+	private static final int PROJECT = 1;
+	private static final int OTHER_PROJECT = 2;
+
+	@TestConfiguration
+	static class Beans {
+		@Bean
+		ObjectMapper objectMapper() {
+			return new ObjectMapper();
+		}
+	}
+
+	@Autowired
+	private ExportService exportService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@MockitoBean
+	private WorkspaceService workspaceService;
+
+	@BeforeEach
+	void setUp() {
+		ArtifactRows rows = new ArtifactRows(jdbcTemplate);
+		rows.project(PROJECT);
+		rows.project(OTHER_PROJECT);
+		rows.classArtifact(10, PROJECT, null, "a.A", 40, 2, 1, 0);
+		rows.methodArtifact(11, PROJECT, 10, "run()", 12, 3);
+		rows.methodArtifact(12, PROJECT, 10, "stop()", 5, 1);
+		rows.methodArtifact(13, PROJECT, 10, "wait(int)", 7, 2);
+		rows.classArtifact(20, PROJECT, null, "a.B", 15, 4, 2, 0);
+		// the same method name in another class, and a class analyzed before fan in and fan out were kept
+		rows.methodArtifact(21, PROJECT, 20, "run()", 9, 4);
+		jdbcTemplate.update("update class_artifact set fan_in = null, fan_out = null where id_class_artifact = 20");
+		// a class without methods has no row
+		rows.classArtifact(30, PROJECT, null);
+		rows.classArtifact(40, OTHER_PROJECT, null, "b.C", 10, 0, 1, 0);
+		rows.methodArtifact(41, OTHER_PROJECT, 40);
+	}
+
+	@Test
+	void theArrowStreamHasTheRowsOfTheCSVWithDecodedNames() throws Exception {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		exportService.writeArrow(PROJECT, outputStream);
+
+		List<String> columns = new ArrayList<>();
+		List<Integer> batchRows = new ArrayList<>();
+		List<List<Object>> rows = new ArrayList<>();
+		try (BufferAllocator allocator = new RootAllocator();
+			 ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(outputStream.toByteArray()), allocator)) {
+			VectorSchemaRoot root = reader.getVectorSchemaRoot();
+			root.getSchema().getFields().forEach(field -> columns.add(field.getName()));
+			while (reader.loadNextBatch()) {
+				batchRows.add(root.getRowCount());
+				for (int row = 0; row < root.getRowCount(); row++) {
+					rows.add(row(reader, root, row));
+				}
+			}
+		}
+
+		assertThat(columns).containsExactly("class", "method", "loc", "attributes", "methods", "complexity", "cbo", "dit",
+				"noc", "fan_in", "fan_out");
+		assertThat(batchRows).containsExactly(2, 2);
+		assertThat(rows).containsExactlyInAnyOrder(
+				Arrays.asList("a.A", "run()", 12, 2, 3, 3, 2, 1, 0, 1, 3),
+				Arrays.asList("a.A", "stop()", 5, 2, 3, 1, 2, 1, 0, 1, 3),
+				Arrays.asList("a.A", "wait(int)", 7, 2, 3, 2, 2, 1, 0, 1, 3),
+				Arrays.asList("a.B", "run()", 9, 2, 1, 4, 4, 2, 0, null, null));
+	}
+
+	@Test
+	void aProjectWithoutMethodsIsAnEmptyStream() throws Exception {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		exportService.writeArrow(3, outputStream);
+
+		try (BufferAllocator allocator = new RootAllocator();
+			 ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(outputStream.toByteArray()), allocator)) {
+			assertThat(reader.getVectorSchemaRoot().getSchema().getFields()).hasSize(11);
+			assertThat(reader.loadNextBatch()).isFalse();
+		}
+	}
+
+	private static List<Object> row(ArrowStreamReader reader, VectorSchemaRoot root, int row) throws Exception {
+		List<Object> values = new ArrayList<>();
+		List<FieldVector> vectors = root.getFieldVectors();
+		for (int column = 0; column < vectors.size(); column++) {
+			IntVector vector = (IntVector) vectors.get(column);
+			if (column < 2) {
+				// the dictionaries of the batch just loaded
+				Dictionary dictionary = reader.getDictionaryVectors().get(vector.getField().getDictionary().getId());
+				byte[] name = ((VarCharVector) dictionary.getVector()).get(vector.get(row));
+				values.add(new String(name, StandardCharsets.UTF_8));
+			} else {
+				values.add(vector.getObject(row));
+			}
+		}
+		return values;
+	}
+}
@@ -0,0 +1,161 @@
+package pt.iscteiul.analyx.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import pt.iscteiul.analyx.entity.ClassArtifact;
+import pt.iscteiul.analyx.entity.MethodArtifact;
+import pt.iscteiul.analyx.entity.Project;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(MetricsCacheService.class)
+@TestPropertySource(properties = {
+		"analyx.metrics-cache.memory-entries=2",
+		"analyx.metrics-cache.max-entries=1"
+})
+// the memory entries, pending touches and counters outlive the rolled back rows
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class MetricsCacheServiceTest {
+	@TestConfiguration
+	static class Beans {
+		@Bean
+		ObjectMapper objectMapper() {
+			return new ObjectMapper();
+		}
+
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired
+	private MetricsCacheService metricsCacheService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private final Project project = project();
+
+	@Test
+	void aMissThenAMemoryHit() {
+		String hash = metricsCacheService.contentHash(bytes("class A {}"));
+
+		assertThat(metricsCacheService.find(hash, project)).isEmpty();
+		metricsCacheService.put(hash, List.of(classArtifact("A", 10)));
+		Optional<List<ClassArtifact>> hit = metricsCacheService.find(hash, project);
+
+		assertThat(hit).hasValueSatisfying(classes -> assertClass(classes, "A", 10));
+		assertThat(count("miss")).isEqualTo(1);
+		assertThat(count("memory_hit")).isEqualTo(1);
+	}
+
+	@Test
+	void entriesOutOfMemoryAreReadFromTheTable() {
+		metricsCacheService.put("a", List.of(classArtifact("A", 10)));
+		metricsCacheService.put("b", List.of(classArtifact("B", 20)));
+		// pushes a out of the two memory entries
+		metricsCacheService.put("c", List.of(classArtifact("C", 30)));
+
+		assertThat(metricsCacheService.find("a", project)).hasValueSatisfying(classes -> assertClass(classes, "A", 10));
+		assertThat(count("database_hit")).isEqualTo(1);
+		assertThat(metricsCacheService.find("a", project)).isPresent();
+		assertThat(count("memory_hit")).isEqualTo(1);
+	}
+
+	@Test
+	void evictionKeepsTheEntriesHitInMemory() {
+		metricsCacheService.put("a", List.of(classArtifact("A", 10)));
+		metricsCacheService.put("b", List.of(classArtifact("B", 20)));
+		metricsCacheService.put("c", List.of(classArtifact("C", 30)));
+		lastUsed("a", LocalDateTime.of(2020, 1, 3, 0, 0));
+		lastUsed("b", LocalDateTime.of(2020, 1, 2, 0, 0));
+		lastUsed("c", LocalDateTime.of(2020, 1, 1, 0, 0));
+
+		// the least recently used in the table, but still in memory
+		assertThat(metricsCacheService.find("c", project)).isPresent();
+		assertThat(count("memory_hit")).isEqualTo(1);
+		metricsCacheService.evict();
+
+		assertThat(jdbcTemplate.queryForList("select content_hash from metrics_cache", String.class)).containsExactly("c");
+	}
+
+	@Test
+	void theHashIgnoresBomLineEndingsAndTrailingBlanks() {
+		String hash = metricsCacheService.contentHash(bytes("class A {\n\tint a;\n}\n"));
+
+		assertThat(metricsCacheService.contentHash(bytes("\uFEFFclass A {  \r\n\tint a;\r\n}"))).isEqualTo(hash);
+		assertThat(metricsCacheService.contentHash(bytes("class A {\n\tint b;\n}\n"))).isNotEqualTo(hash);
+	}
+
+	private double count(String result) {
+		return meterRegistry.counter("analyx.metrics.cache", "result", result).count();
+	}
+
+	private void lastUsed(String contentHash, LocalDateTime date) {
+		jdbcTemplate.update("update metrics_cache set last_used_date = ? where content_hash = ?", Timestamp.valueOf(date), contentHash);
+	}
+
+	private void assertClass(List<ClassArtifact> classes, String name, int linesCode) {
+		assertThat(classes).singleElement().satisfies(classArtifact -> {
+			assertThat(classArtifact.getName()).isEqualTo(name);
+			assertThat(classArtifact.getLinesCode()).isEqualTo(linesCode);
+			assertThat(classArtifact.getProject()).isSameAs(project);
+			assertThat(classArtifact.getMethodsArtifact()).singleElement().satisfies(method -> {
+				assertThat(method.getName()).isEqualTo("run()");
+				assertThat(method.getCyclomaticComplexity()).isEqualTo(2);
+				assertThat(method.getClassArtifact()).isSameAs(classArtifact);
+			});
+		});
+	}
+
+	private static ClassArtifact classArtifact(String name, int linesCode) {
+		ClassArtifact classArtifact = new ClassArtifact();
+		classArtifact.setName(name);
+		classArtifact.setLinesCode(linesCode);
+		classArtifact.setNumberAttributes(1);
+		classArtifact.setDit(1);
+		classArtifact.setCbo(2);
+		classArtifact.setNoc(0);
+		classArtifact.setFanIn(1);
+		classArtifact.setFanOut(2);
+		MethodArtifact method = new MethodArtifact();
+		method.setName("run()");
+		method.setLinesCode(linesCode - 2);
+		method.setCyclomaticComplexity(2);
+		classArtifact.setMethodsArtifact(List.of(method));
+		return classArtifact;
+	}
+
+	private static Project project() {
+		Project project = new Project();
+		project.setId(1);
+		return project;
+	}
+
+	private static byte[] bytes(String content) {
+		return content.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,59 @@
+package pt.iscteiul.analyx.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import pt.iscteiul.analyx.entity.Project;
+import pt.iscteiul.analyx.entity.StatusAnalysis;
+import pt.iscteiul.analyx.repository.ProjectRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(ProjectSummaryService.class)
+class ProjectSummaryServiceTest {
+	private static final int PROJECT = 1;
+
+	@Autowired
+	private ProjectSummaryService projectSummaryService;
+
+	@Autowired
+	private ProjectRepository projectRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private ArtifactRows rows;
+
+	@BeforeEach
+	void setUp() {
+		rows = new ArtifactRows(jdbcTemplate);
+		rows.project(PROJECT);
+		rows.classArtifact(1, PROJECT, null);
+		rows.methodArtifact(2, PROJECT, 1);
+	}
+
+	@Test
+	void aFinishedProjectWithoutSummaryIsSummarizedOnRead() {
+		Project project = projectRepository.findById(PROJECT).orElseThrow();
+
+		assertThat(projectSummaryService.getSummary(project)).hasValueSatisfying(summary -> {
+			assertThat(summary.getClassCount()).isEqualTo(1);
+			assertThat(summary.getMethodCount()).isEqualTo(1);
+		});
+	}
+
+	@Test
+	void aProjectUnderAnalysisIsNotSummarizedOnRead() {
+		Project project = projectRepository.findById(PROJECT).orElseThrow();
+		project.setStatusAnalysis(StatusAnalysis.PROCESSING_FILES);
+
+		assertThat(projectSummaryService.getSummary(project)).isEmpty();
+		assertThat(rows.count("project_summary", PROJECT)).isZero();
+	}
+}
@@ -0,0 +1,28 @@
+-- tables of the Flyway migrations that have no entity for Hibernate to create, for the tests and the load test on H2
+DROP TABLE IF EXISTS artifact_sequence;
+CREATE TABLE artifact_sequence (
+  next_val INT NOT NULL
+);
+INSERT INTO artifact_sequence (next_val) VALUES (1);
+
+CREATE TABLE IF NOT EXISTS metrics_cache (
+  content_hash CHAR(64) NOT NULL,
+  metrics MEDIUMTEXT NOT NULL,
+  last_used_date DATETIME NOT NULL,
+  PRIMARY KEY (content_hash)
+);
+CREATE INDEX IF NOT EXISTS last_used_date_idx ON metrics_cache (last_used_date);
+
+CREATE TABLE IF NOT EXISTS analysis_partition (
+  id_analysis_partition BIGINT NOT NULL AUTO_INCREMENT,
+  id_job_execution BIGINT NOT NULL,
+  id_step_execution BIGINT NOT NULL,
+  step_name VARCHAR(100) NOT NULL,
+  status INT NOT NULL,
+  worker VARCHAR(100) NULL,
+  claimed_date DATETIME NULL,
+  heartbeat_date DATETIME NULL,
+  created_date DATETIME NOT NULL,
+  PRIMARY KEY (id_analysis_partition),
+  UNIQUE (id_step_execution)
+);